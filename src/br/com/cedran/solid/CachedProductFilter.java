@@ -0,0 +1,89 @@
+package br.com.cedran.solid;
+
+import br.com.cedran.solid.OpenClosedPrinciple.AttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Color;
+import br.com.cedran.solid.OpenClosedPrinciple.ColorFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.MultipleAttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Product;
+import br.com.cedran.solid.OpenClosedPrinciple.Size;
+import br.com.cedran.solid.OpenClosedPrinciple.SizeFilter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The same queries are issued again and again, and since the filters now have structural equality two separately
+ * built filters asking the same thing are recognized as the same query.
+ *
+ * The result cache sits in front of the catalog and keeps the results of the most recently used queries for the
+ * catalog version they were computed from. Results of older versions can never be served again, so as soon as the
+ * catalog version changes the whole cache is dropped.
+ */
+public class CachedProductFilter {
+
+    public static void main(String[] args) {
+        ProductCatalog catalog = new ProductCatalog();
+        catalog.insert(new Product("TShirt", Color.BLUE, Size.SMALL));
+        catalog.insert(new Product("Trousers", Color.GREEN, Size.LARGE));
+
+        ProductQueryCache cache = new ProductQueryCache(catalog, 100);
+        cache.find(new MultipleAttributeFilter(new ColorFilter(Color.GREEN), new SizeFilter(Size.LARGE))).forEach(System.out::println);
+        cache.find(new MultipleAttributeFilter(new ColorFilter(Color.GREEN), new SizeFilter(Size.LARGE))).forEach(System.out::println);
+        System.out.println("Hits: " + cache.hits() + ", misses: " + cache.misses());
+
+        catalog.insert(new Product("Sneakers", Color.GREEN, Size.LARGE));
+        cache.find(new MultipleAttributeFilter(new ColorFilter(Color.GREEN), new SizeFilter(Size.LARGE))).forEach(System.out::println);
+        System.out.println("Hits: " + cache.hits() + ", misses: " + cache.misses());
+    }
+}
+
+class ProductQueryCache {
+
+    private final ProductCatalog catalog;
+    private final int capacity;
+    private final LinkedHashMap<AttributeFilter, List<Product>> results;
+    private long version;
+    private long hits = 0, misses = 0;
+
+    public ProductQueryCache(ProductCatalog catalog, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.catalog = catalog;
+        this.capacity = capacity;
+        this.version = catalog.version();
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<AttributeFilter, List<Product>> eldest) {
+                return size() > ProductQueryCache.this.capacity;
+            }
+        };
+    }
+
+    public synchronized Stream<Product> find(AttributeFilter attributeFilter) {
+        if (version != catalog.version()) {
+            results.clear();
+            version = catalog.version();
+        }
+        List<Product> cached = results.get(attributeFilter);
+        if (cached != null) {
+            hits++;
+            return cached.stream();
+        }
+        misses++;
+        List<Product> found = catalog.stream().filter(attributeFilter::filter).collect(Collectors.toUnmodifiableList());
+        results.put(attributeFilter, found);
+        return found.stream();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+}
@@ -0,0 +1,216 @@
+package br.com.cedran.solid;
+
+import br.com.cedran.solid.OpenClosedPrinciple.AnyAttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.AttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Color;
+import br.com.cedran.solid.OpenClosedPrinciple.ColorFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.MultipleAttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.NameFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Product;
+import br.com.cedran.solid.OpenClosedPrinciple.Size;
+import br.com.cedran.solid.OpenClosedPrinciple.SizeFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Scanning a list of products touches a product object and two enum references per row, scattered all over the heap.
+ *
+ * The columnar catalog stores every attribute in its own array instead: colors and sizes as their enum ordinals in
+ * byte columns and names as ids of a shared dictionary. A color or size filter is evaluated one column at a time with a
+ * tight, branch free loop over a byte array and it produces the positions of the matches. Name filters are tested once
+ * per distinct name among the candidates and then only compare ids along the name column. The other filters of a
+ * MultipleAttributeFilter only look at those positions, and Product objects are only created, lazily, for the matches.
+ *
+ * The first predicate of a query reads its column directly, sequentially and without branches, and only the following
+ * ones go through the selection vector, whose indirect reads the JIT cannot vectorize. The Vector API would speed the
+ * column loops further, but it is still an incubator module.
+ */
+public class ColumnarProductFilter {
+
+    public static void main(String[] args) {
+        ColumnarProductCatalog catalog = new ColumnarProductCatalog();
+        catalog.add(new Product("TShirt", Color.BLUE, Size.SMALL));
+        catalog.add(new Product("Trousers", Color.GREEN, Size.LARGE));
+        catalog.add(new Product("Sneakers", Color.GREEN, Size.MEDIUM));
+
+        System.out.println("Green and Large products (columnar):");
+        catalog.find(new MultipleAttributeFilter(new ColorFilter(Color.GREEN), new SizeFilter(Size.LARGE))).forEach(System.out::println);
+        System.out.println("Positions of the green products: " + Arrays.toString(catalog.matches(new ColorFilter(Color.GREEN))));
+        System.out.println("Positions of the products named S*: " + Arrays.toString(catalog.matches(NameFilter.startingWith("S"))));
+    }
+}
+
+class ColumnarProductCatalog {
+
+    private static final Color[] COLORS = Color.values();
+    private static final Size[] SIZES = Size.values();
+    private static final byte UNKNOWN = 0, MATCHING = 1, NOT_MATCHING = 2;
+
+    private byte[] colors = new byte[16];
+    private byte[] sizes = new byte[16];
+    private int[] names = new int[16];
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private int size = 0;
+
+    public void add(Product product) {
+        if (size == colors.length) {
+            colors = Arrays.copyOf(colors, size * 2);
+            sizes = Arrays.copyOf(sizes, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+        }
+        colors[size] = (byte) product.color.ordinal();
+        sizes[size] = (byte) product.size.ordinal();
+        names[size] = dictionaryIds.computeIfAbsent(product.name, name -> {
+            dictionary.add(name);
+            return dictionary.size() - 1;
+        });
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Materializes the product at the given position.
+     */
+    public Product product(int position) {
+        return new Product(dictionary.get(names[position]), COLORS[colors[position]], SIZES[sizes[position]]);
+    }
+
+    public Stream<Product> find(AttributeFilter attributeFilter) {
+        return IntStream.of(matches(attributeFilter)).mapToObj(this::product);
+    }
+
+    /**
+     * Positions of the matching products, in ascending order.
+     */
+    public int[] matches(AttributeFilter attributeFilter) {
+        Selection selection = evaluate(attributeFilter, null);
+        return Arrays.copyOf(selection.positions, selection.size);
+    }
+
+    /**
+     * A null selection stands for every row, so the first predicate never needs an identity selection vector.
+     */
+    private Selection evaluate(AttributeFilter attributeFilter, Selection candidates) {
+        if (attributeFilter instanceof ColorFilter) {
+            return select(colors, (byte) ((ColorFilter) attributeFilter).color().ordinal(), candidates);
+        }
+        if (attributeFilter instanceof SizeFilter) {
+            return select(sizes, (byte) ((SizeFilter) attributeFilter).size().ordinal(), candidates);
+        }
+        if (attributeFilter instanceof NameFilter) {
+            // every distinct name still among the candidates is tested once, rows only compare ids
+            NameFilter nameFilter = (NameFilter) attributeFilter;
+            byte[] matchingNames = new byte[dictionary.size()];
+            Selection result = new Selection(count(candidates));
+            for (int i = 0; i < count(candidates); i++) {
+                int position = candidates == null ? i : candidates.positions[i];
+                int id = names[position];
+                if (matchingNames[id] == UNKNOWN) {
+                    matchingNames[id] = nameFilter.matches(dictionary.get(id)) ? MATCHING : NOT_MATCHING;
+                }
+                result.positions[result.size] = position;
+                result.size += matchingNames[id] == MATCHING ? 1 : 0;
+            }
+            return result;
+        }
+        if (attributeFilter instanceof MultipleAttributeFilter) {
+            Selection selection = candidates;
+            for (AttributeFilter filter : ((MultipleAttributeFilter) attributeFilter).filters()) {
+                if (count(selection) == 0) {
+                    break;
+                }
+                selection = evaluate(filter, selection);
+            }
+            // an empty composite matches everything
+            return selection == null ? all() : selection;
+        }
+        if (attributeFilter instanceof AnyAttributeFilter) {
+            boolean[] matched = new boolean[size];
+            for (AttributeFilter filter : ((AnyAttributeFilter) attributeFilter).filters()) {
+                Selection selection = evaluate(filter, candidates);
+                for (int i = 0; i < selection.size; i++) {
+                    matched[selection.positions[i]] = true;
+                }
+            }
+            Selection result = new Selection(count(candidates));
+            for (int i = 0; i < count(candidates); i++) {
+                int position = candidates == null ? i : candidates.positions[i];
+                result.positions[result.size] = position;
+                result.size += matched[position] ? 1 : 0;
+            }
+            return result;
+        }
+        // not a columnar filter: rows are materialized, but only for the remaining candidates
+        Selection result = new Selection(count(candidates));
+        for (int i = 0; i < count(candidates); i++) {
+            int position = candidates == null ? i : candidates.positions[i];
+            if (attributeFilter.filter(product(position))) {
+                result.positions[result.size++] = position;
+            }
+        }
+        return result;
+    }
+
+    private Selection all() {
+        Selection all = new Selection(size);
+        for (int i = 0; i < size; i++) {
+            all.positions[i] = i;
+        }
+        all.size = size;
+        return all;
+    }
+
+    private int count(Selection candidates) {
+        return candidates == null ? size : candidates.size;
+    }
+
+    private Selection select(byte[] column, byte value, Selection candidates) {
+        if (candidates == null) {
+            return selectAll(column, value);
+        }
+        Selection result = new Selection(candidates.size);
+        final int[] in = candidates.positions, out = result.positions;
+        int n = 0;
+        for (int i = 0; i < candidates.size; i++) {
+            int position = in[i];
+            out[n] = position;
+            n += column[position] == value ? 1 : 0;
+        }
+        result.size = n;
+        return result;
+    }
+
+    private Selection selectAll(byte[] column, byte value) {
+        Selection result = new Selection(size);
+        final int[] out = result.positions;
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            out[n] = i;
+            n += column[i] == value ? 1 : 0;
+        }
+        result.size = n;
+        return result;
+    }
+
+    /**
+     * Selection vector: positions of the rows still matching, ascending.
+     */
+    private static class Selection {
+        private final int[] positions;
+        private int size = 0;
+
+        Selection(int capacity) {
+            positions = new int[capacity];
+        }
+    }
+}
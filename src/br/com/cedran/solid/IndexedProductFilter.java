@@ -0,0 +1,291 @@
+package br.com.cedran.solid;
+
+import br.com.cedran.solid.OpenClosedPrinciple.AnyAttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.AttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Color;
+import br.com.cedran.solid.OpenClosedPrinciple.ColorFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.MultipleAttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.NameFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Product;
+import br.com.cedran.solid.OpenClosedPrinciple.Size;
+import br.com.cedran.solid.OpenClosedPrinciple.SizeFilter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * ProductFilterExtensible scans the whole list for every query, even though colors and sizes only have a handful of
+ * values each.
+ *
+ * The indexed store keeps one bitmap per color and per size, where bit i tells whether the i-th product has that
+ * value. Color and size filters become a copy of their bitmap, MultipleAttributeFilter an AND and AnyAttributeFilter
+ * an OR of the bitmaps of their filters. Filters the store does not know about are only evaluated against the
+ * candidates left by the indexed ones, or against the whole catalog when nothing else narrows it down. Since the
+ * store knows nothing about the filters beyond these types, new filters keep working without changing it.
+ *
+ * Names are indexed too: a hash map for exact names, a trie for prefixes and trigram postings for substrings. Inside a
+ * MultipleAttributeFilter the name lookups run first, since a name usually narrows the candidates far more than a
+ * color or a size does. Only lookups run before the color and size bitmaps though: checking that the candidates of the
+ * trigram postings really contain the substring, and scanning for substrings too short to have a trigram, are left for
+ * the end, when the bitmaps have cut the candidates down.
+ *
+ * Products are indexed when added, so changing the name, color or size of a product already in the store is not seen.
+ */
+public class IndexedProductFilter {
+
+    public static void main(String[] args) {
+        IndexedProductStore store = new IndexedProductStore();
+        store.add(new Product("TShirt", Color.BLUE, Size.SMALL));
+        store.add(new Product("Trousers", Color.GREEN, Size.LARGE));
+        store.add(new Product("Sneakers", Color.GREEN, Size.MEDIUM));
+
+        System.out.println("Green and Large products (indexed):");
+        store.find(new MultipleAttributeFilter(new ColorFilter(Color.GREEN), new SizeFilter(Size.LARGE))).forEach(System.out::println);
+        System.out.println("Blue or Medium products (indexed):");
+        store.find(new AnyAttributeFilter(new ColorFilter(Color.BLUE), new SizeFilter(Size.MEDIUM))).forEach(System.out::println);
+        System.out.println("Green products whose name ends with s (partially indexed):");
+        store.find(new MultipleAttributeFilter(new ColorFilter(Color.GREEN), product -> product.name.endsWith("s"))).forEach(System.out::println);
+        System.out.println("Green products whose name starts with S (indexed):");
+        store.find(new MultipleAttributeFilter(new ColorFilter(Color.GREEN), NameFilter.startingWith("S"))).forEach(System.out::println);
+        System.out.println("Products whose name contains \"ser\" (indexed):");
+        store.find(NameFilter.containing("ser")).forEach(System.out::println);
+    }
+}
+
+class IndexedProductStore {
+
+    private final List<Product> products = new ArrayList<>();
+    private final Map<Color, BitSet> colors = new EnumMap<>(Color.class);
+    private final Map<Size, BitSet> sizes = new EnumMap<>(Size.class);
+    private final NameIndex names = new NameIndex();
+
+    public IndexedProductStore() {
+        for (Color color : Color.values()) {
+            colors.put(color, new BitSet());
+        }
+        for (Size size : Size.values()) {
+            sizes.put(size, new BitSet());
+        }
+    }
+
+    public void add(Product product) {
+        int position = products.size();
+        products.add(product);
+        colors.get(product.color).set(position);
+        sizes.get(product.size).set(position);
+        names.add(product.name, position);
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    public Stream<Product> find(AttributeFilter attributeFilter) {
+        return evaluate(attributeFilter, null).stream().mapToObj(products::get);
+    }
+
+    /**
+     * Positions of the products matching the filter. When candidates is not null only those positions need to be
+     * considered, which is what keeps non indexed filters from scanning the whole catalog.
+     */
+    private BitSet evaluate(AttributeFilter attributeFilter, BitSet candidates) {
+        if (attributeFilter instanceof ColorFilter) {
+            return restrict((BitSet) colors.get(((ColorFilter) attributeFilter).color()).clone(), candidates);
+        }
+        if (attributeFilter instanceof SizeFilter) {
+            return restrict((BitSet) sizes.get(((SizeFilter) attributeFilter).size()).clone(), candidates);
+        }
+        if (attributeFilter instanceof NameFilter) {
+            if (!isIndexed(attributeFilter)) {
+                // too short to be looked up in the trigram postings
+                return scan(attributeFilter, candidates == null ? all() : candidates);
+            }
+            BitSet result = lookUp((NameFilter) attributeFilter, candidates);
+            return needsVerification(attributeFilter) ? scan(attributeFilter, result) : result;
+        }
+        if (attributeFilter instanceof MultipleAttributeFilter) {
+            List<AttributeFilter> filters = ((MultipleAttributeFilter) attributeFilter).filters();
+            BitSet result = candidates;
+            // name lookups first, then the other indexed filters, so the verifications and the non indexed filters
+            // only look at what is left
+            for (AttributeFilter filter : filters) {
+                if (filter instanceof NameFilter && isIndexed(filter)) {
+                    result = lookUp((NameFilter) filter, result);
+                }
+            }
+            for (AttributeFilter filter : filters) {
+                if (isIndexed(filter) && !(filter instanceof NameFilter)) {
+                    result = evaluate(filter, result);
+                }
+            }
+            for (AttributeFilter filter : filters) {
+                if (needsVerification(filter)) {
+                    result = scan(filter, result);
+                }
+            }
+            for (AttributeFilter filter : filters) {
+                if (!isIndexed(filter)) {
+                    result = evaluate(filter, result);
+                }
+            }
+            return result == null ? all() : result;
+        }
+        if (attributeFilter instanceof AnyAttributeFilter) {
+            BitSet result = new BitSet();
+            for (AttributeFilter filter : ((AnyAttributeFilter) attributeFilter).filters()) {
+                result.or(evaluate(filter, candidates));
+            }
+            return result;
+        }
+        return scan(attributeFilter, candidates == null ? all() : candidates);
+    }
+
+    /**
+     * Positions whose name matches the filter according to the index, a superset of the matches for substrings.
+     */
+    private BitSet lookUp(NameFilter nameFilter, BitSet candidates) {
+        return restrict(names.find(nameFilter, products.size()), candidates);
+    }
+
+    /**
+     * Sharing all the trigrams does not mean containing the substring, so what the postings return has to be checked.
+     */
+    private static boolean needsVerification(AttributeFilter attributeFilter) {
+        return attributeFilter instanceof NameFilter && ((NameFilter) attributeFilter).match() == NameFilter.Match.SUBSTRING
+                && ((NameFilter) attributeFilter).name().length() >= NameIndex.TRIGRAM;
+    }
+
+    private boolean isIndexed(AttributeFilter attributeFilter) {
+        if (attributeFilter instanceof ColorFilter || attributeFilter instanceof SizeFilter) {
+            return true;
+        }
+        if (attributeFilter instanceof NameFilter) {
+            NameFilter nameFilter = (NameFilter) attributeFilter;
+            return nameFilter.match() != NameFilter.Match.SUBSTRING || nameFilter.name().length() >= NameIndex.TRIGRAM;
+        }
+        if (attributeFilter instanceof MultipleAttributeFilter) {
+            return ((MultipleAttributeFilter) attributeFilter).filters().stream().allMatch(this::isIndexed);
+        }
+        if (attributeFilter instanceof AnyAttributeFilter) {
+            return ((AnyAttributeFilter) attributeFilter).filters().stream().allMatch(this::isIndexed);
+        }
+        return false;
+    }
+
+    private BitSet scan(AttributeFilter attributeFilter, BitSet candidates) {
+        BitSet result = new BitSet();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (attributeFilter.filter(products.get(i))) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    private BitSet all() {
+        BitSet all = new BitSet(products.size());
+        all.set(0, products.size());
+        return all;
+    }
+
+    private static BitSet restrict(BitSet bits, BitSet candidates) {
+        if (candidates != null) {
+            bits.and(candidates);
+        }
+        return bits;
+    }
+}
+
+/**
+ * Positions of the products by name: a hash map for exact names, a trie for prefixes and the postings of every
+ * trigram (three consecutive chars) for substrings.
+ */
+class NameIndex {
+
+    static final int TRIGRAM = 3;
+
+    private final Map<String, BitSet> exact = new HashMap<>();
+    private final TrieNode trie = new TrieNode();
+    private final Map<Long, BitSet> trigrams = new HashMap<>();
+
+    public void add(String name, int position) {
+        exact.computeIfAbsent(name, key -> new BitSet()).set(position);
+
+        TrieNode node = trie;
+        for (int i = 0; i < name.length(); i++) {
+            node = node.children.computeIfAbsent(name.charAt(i), key -> new TrieNode());
+        }
+        if (node.positions == null) {
+            node.positions = new BitSet();
+        }
+        node.positions.set(position);
+
+        for (int i = 0; i + TRIGRAM <= name.length(); i++) {
+            trigrams.computeIfAbsent(trigram(name, i), key -> new BitSet()).set(position);
+        }
+    }
+
+    /**
+     * Positions matching the filter. For substrings it is a superset of the matches (they share all the trigrams of
+     * the substring) and null when the substring is shorter than a trigram.
+     */
+    public BitSet find(NameFilter filter, int productCount) {
+        String name = filter.name();
+        switch (filter.match()) {
+            case EXACT: {
+                BitSet positions = exact.get(name);
+                return positions == null ? new BitSet() : (BitSet) positions.clone();
+            }
+            case PREFIX: {
+                TrieNode node = trie;
+                for (int i = 0; i < name.length() && node != null; i++) {
+                    node = node.children.get(name.charAt(i));
+                }
+                BitSet positions = new BitSet();
+                if (node != null) {
+                    node.collect(positions);
+                }
+                return positions;
+            }
+            default: {
+                if (name.length() < TRIGRAM) {
+                    return null;
+                }
+                BitSet positions = new BitSet(productCount);
+                positions.set(0, productCount);
+                for (int i = 0; i + TRIGRAM <= name.length() && !positions.isEmpty(); i++) {
+                    BitSet postings = trigrams.get(trigram(name, i));
+                    if (postings == null) {
+                        return new BitSet();
+                    }
+                    positions.and(postings);
+                }
+                return positions;
+            }
+        }
+    }
+
+    private static long trigram(String name, int from) {
+        return ((long) name.charAt(from) << 32) | ((long) name.charAt(from + 1) << 16) | name.charAt(from + 2);
+    }
+
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        // products whose name ends at this node
+        private BitSet positions;
+
+        void collect(BitSet result) {
+            if (positions != null) {
+                result.or(positions);
+            }
+            for (TrieNode child : children.values()) {
+                child.collect(result);
+            }
+        }
+    }
+}
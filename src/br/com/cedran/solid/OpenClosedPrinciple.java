@@ -2,8 +2,13 @@ package br.com.cedran.solid;
 
 import org.w3c.dom.Entity;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Stream;
 
 /**
@@ -76,42 +81,301 @@ public class OpenClosedPrinciple {
 
     static class ColorFilter implements AttributeFilter{
 
-        private Color color;
+        private final Color color;
 
         public ColorFilter(Color color) {
             this.color = color;
         }
 
+        Color color() {
+            return color;
+        }
+
         @Override
         public boolean filter(Product product) {
             return product.color.equals(color);
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ColorFilter that = (ColorFilter) o;
+            return color == that.color;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(color);
+        }
     }
 
     static class SizeFilter implements AttributeFilter{
 
-        private Size size;
+        private final Size size;
 
         public SizeFilter(Size color) {
             this.size = color;
         }
 
+        Size size() {
+            return size;
+        }
+
         @Override
         public boolean filter(Product product) {
             return product.size.equals(size);
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SizeFilter that = (SizeFilter) o;
+            return size == that.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(size);
+        }
+    }
+
+    /**
+     * The NameFilter anticipated above: exact name, name prefix or name substring.
+     */
+    static class NameFilter implements AttributeFilter {
+
+        enum Match {
+            EXACT, PREFIX, SUBSTRING
+        }
+
+        private final String name;
+        private final Match match;
+
+        public NameFilter(String name, Match match) {
+            this.name = Objects.requireNonNull(name);
+            this.match = Objects.requireNonNull(match);
+        }
+
+        public static NameFilter named(String name) {
+            return new NameFilter(name, Match.EXACT);
+        }
+
+        public static NameFilter startingWith(String prefix) {
+            return new NameFilter(prefix, Match.PREFIX);
+        }
+
+        public static NameFilter containing(String substring) {
+            return new NameFilter(substring, Match.SUBSTRING);
+        }
+
+        String name() {
+            return name;
+        }
+
+        Match match() {
+            return match;
+        }
+
+        @Override
+        public boolean filter(Product product) {
+            return matches(product.name);
+        }
+
+        /**
+         * Tests a bare name, for stores that keep names apart from the rest of the product.
+         */
+        public boolean matches(String productName) {
+            switch (match) {
+                case EXACT:
+                    return productName.equals(name);
+                case PREFIX:
+                    return productName.startsWith(name);
+                default:
+                    return productName.contains(name);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            NameFilter that = (NameFilter) o;
+            return name.equals(that.name) &&
+                    match == that.match;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + match.hashCode();
+        }
     }
 
+    /**
+     * The filters are compiled once into a flat array (nested MultipleAttributeFilters included), so evaluating a
+     * product is a plain loop without any allocation. One evaluation out of SAMPLE_INTERVAL also counts how many
+     * products pass each filter, and every REORDER_INTERVAL samples the chain moves the most selective filters to the
+     * front, so most products are rejected by the first check. Only the samples touch the counters, under a lock, so
+     * evaluations from several threads neither contend on them nor lose updates. The counters are halved at every
+     * reorder, so the order follows the products currently being filtered rather than all the past ones.
+     */
     static class MultipleAttributeFilter implements AttributeFilter {
+        private static final int SAMPLE_INTERVAL = 16;
+        private static final int REORDER_INTERVAL = 64;
+
         private List<AttributeFilter> filters;
+        private volatile Link[] chain;
+        private int samples = 0;
 
         public MultipleAttributeFilter(AttributeFilter... filters) {
-            this.filters = Arrays.asList(filters);
+            // copied, the composite is a cache key and must not change with the caller's array
+            this.filters = List.copyOf(Arrays.asList(filters));
+            List<Link> links = new ArrayList<>();
+            compile(this.filters, links);
+            this.chain = links.toArray(new Link[0]);
+        }
+
+        List<AttributeFilter> filters() {
+            return filters;
+        }
+
+        @Override
+        public boolean filter(Product product) {
+            if ((ThreadLocalRandom.current().nextInt() & (SAMPLE_INTERVAL - 1)) == 0) {
+                return sample(product);
+            }
+            for (Link link : chain) {
+                if (!link.filter.filter(product)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Observed fraction of the products passing each filter, in the order they are currently evaluated. It is a
+         * list of pairs rather than a map since the chain may hold several equal filters.
+         */
+        public synchronized List<Map.Entry<AttributeFilter, Double>> selectivity() {
+            List<Map.Entry<AttributeFilter, Double>> selectivity = new ArrayList<>();
+            for (Link link : chain) {
+                selectivity.add(Map.entry(link.filter, link.passRate()));
+            }
+            return selectivity;
+        }
+
+        /**
+         * Two composites are the same query when they have the same filters in the same order, the observed
+         * selectivity is not part of it.
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            MultipleAttributeFilter that = (MultipleAttributeFilter) o;
+            return filters.equals(that.filters);
+        }
+
+        @Override
+        public int hashCode() {
+            return filters.hashCode();
+        }
+
+        private synchronized boolean sample(Product product) {
+            boolean matches = true;
+            for (Link link : chain) {
+                link.evaluated++;
+                if (!link.filter.filter(product)) {
+                    matches = false;
+                    break;
+                }
+                link.passed++;
+            }
+            if (++samples == REORDER_INTERVAL) {
+                samples = 0;
+                reorder();
+            }
+            return matches;
+        }
+
+        private void reorder() {
+            Link[] reordered = chain.clone();
+            Arrays.sort(reordered, Comparator.comparingDouble(Link::passRate));
+            for (Link link : reordered) {
+                link.decay();
+            }
+            chain = reordered;
+        }
+
+        private static void compile(List<AttributeFilter> filters, List<Link> links) {
+            for (AttributeFilter filter : filters) {
+                if (filter instanceof MultipleAttributeFilter) {
+                    compile(((MultipleAttributeFilter) filter).filters, links);
+                } else {
+                    links.add(new Link(filter));
+                }
+            }
+        }
+
+        private static class Link {
+            private final AttributeFilter filter;
+            private long evaluated = 0, passed = 0;
+
+            Link(AttributeFilter filter) {
+                this.filter = filter;
+            }
+
+            // filters never evaluated are assumed to let everything through
+            double passRate() {
+                return evaluated == 0 ? 1 : (double) passed / evaluated;
+            }
+
+            void decay() {
+                evaluated >>= 1;
+                passed >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Extending again without touching anything: products matching any of the filters.
+     */
+    static class AnyAttributeFilter implements AttributeFilter {
+        private final List<AttributeFilter> filters;
+        // evaluated as a plain array, without a stream and a lambda per product
+        private final AttributeFilter[] checks;
+
+        public AnyAttributeFilter(AttributeFilter... filters) {
+            this.filters = List.copyOf(Arrays.asList(filters));
+            this.checks = this.filters.toArray(new AttributeFilter[0]);
+        }
+
+        List<AttributeFilter> filters() {
+            return filters;
         }
 
         @Override
         public boolean filter(Product product) {
-            return filters.stream().allMatch(filter -> filter.filter(product));
+            for (AttributeFilter filter : checks) {
+                if (filter.filter(product)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            AnyAttributeFilter that = (AnyAttributeFilter) o;
+            return filters.equals(that.filters);
+        }
+
+        @Override
+        public int hashCode() {
+            return filters.hashCode();
         }
     }
 
@@ -140,6 +404,8 @@ public class OpenClosedPrinciple {
         productFilterExtensible.find(products, new ColorFilter(Color.GREEN)).forEach(System.out::println);
         System.out.println("Green products (OCP adherent ): ");
         productFilterExtensible.find(products, new MultipleAttributeFilter(new ColorFilter(Color.GREEN), new SizeFilter(Size.LARGE))).forEach(System.out::println);
+        System.out.println("Green products named S* (OCP adherent ): ");
+        productFilterExtensible.find(products, new MultipleAttributeFilter(new ColorFilter(Color.GREEN), NameFilter.startingWith("S"))).forEach(System.out::println);
 
     }
 
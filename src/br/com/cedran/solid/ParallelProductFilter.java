@@ -0,0 +1,137 @@
+package br.com.cedran.solid;
+
+import br.com.cedran.solid.OpenClosedPrinciple.AttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Color;
+import br.com.cedran.solid.OpenClosedPrinciple.ColorFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Product;
+import br.com.cedran.solid.OpenClosedPrinciple.ProductFilterExtensible;
+import br.com.cedran.solid.OpenClosedPrinciple.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The filters only ever run over a sequential stream, so a big catalog is filtered by a single core.
+ *
+ * Being open for extension, ProductFilterExtensible can be extended with a parallel version without being changed.
+ * The catalog is split by a spliterator into balanced chunks by index (always halving the remaining range, down to a
+ * minimum chunk size) and the chunks are filtered on a dedicated ForkJoinPool, so heavy queries don't starve the common
+ * pool used by the rest of the application. When the order of the results does not matter the stream is made
+ * unordered, so it is free to drop the encounter order constraints, and small catalogs are simply filtered sequentially
+ * since splitting them costs more than it saves.
+ */
+public class ParallelProductFilter {
+
+    public static void main(String[] args) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            products.add(new Product("Product " + i, Color.values()[i % Color.values().length], Size.values()[i % Size.values().length]));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelProductFilterExtensible filter = new ParallelProductFilterExtensible(pool, 10_000);
+            System.out.println("Green products (ordered): " + filter.find(products, new ColorFilter(Color.GREEN)).count());
+            System.out.println("Green products (unordered): " + filter.find(products, new ColorFilter(Color.GREEN), false).count());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
+
+class ParallelProductFilterExtensible extends ProductFilterExtensible {
+
+    static final int MIN_CHUNK_SIZE = 1024;
+
+    private final ForkJoinPool pool;
+    private final int sequentialThreshold;
+
+    public ParallelProductFilterExtensible(ForkJoinPool pool, int sequentialThreshold) {
+        this.pool = pool;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    @Override
+    public Stream<Product> find(List<Product> products, AttributeFilter attributeFilter) {
+        return find(products, attributeFilter, true);
+    }
+
+    /**
+     * The matches are collected before returning, the filtering has to run inside the pool.
+     */
+    public Stream<Product> find(List<Product> products, AttributeFilter attributeFilter, boolean ordered) {
+        if (products.size() < sequentialThreshold) {
+            return super.find(products, attributeFilter);
+        }
+        if (!(products instanceof RandomAccess)) {
+            products = new ArrayList<>(products);
+        }
+        // a parallel stream runs its tasks in the pool of the thread which starts the terminal operation
+        Stream<Product> stream = StreamSupport.stream(new ChunkSpliterator(products, 0, products.size()), true)
+                .filter(attributeFilter::filter);
+        Stream<Product> matches = ordered ? stream : stream.unordered();
+        return pool.submit(() -> matches.collect(Collectors.toList())).join().stream();
+    }
+
+    /**
+     * Splits a random access list by index, always in halves, so every chunk has the same size (give or take one).
+     */
+    private static class ChunkSpliterator implements Spliterator<Product> {
+        private final List<Product> products;
+        private int from;
+        private final int to;
+
+        ChunkSpliterator(List<Product> products, int from, int to) {
+            this.products = products;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Product> action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(products.get(from++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Product> action) {
+            for (int i = from; i < to; i++) {
+                action.accept(products.get(i));
+            }
+            from = to;
+        }
+
+        @Override
+        public Spliterator<Product> trySplit() {
+            int remaining = to - from;
+            if (remaining < MIN_CHUNK_SIZE * 2) {
+                return null;
+            }
+            int middle = from + remaining / 2;
+            Spliterator<Product> prefix = new ChunkSpliterator(products, from, middle);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            // the list may hold nulls, so NONNULL is not reported
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.cedran.solid;
+
+import br.com.cedran.solid.OpenClosedPrinciple.AttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Product;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class ProductCatalog {
+
+    private final Set<Product> products = new LinkedHashSet<>();
+    private final List<StandingQuery> queries = new ArrayList<>();
+    private long version = 0;
+
+    /**
+     * Changes on every insert, update and removal.
+     */
+    public long version() {
+        return version;
+    }
+
+    public void insert(Product product) {
+        if (products.add(product)) {
+            version++;
+            for (StandingQuery query : queries) {
+                query.offer(product);
+            }
+        }
+    }
+
+    /**
+     * Must be called after changing a product of the catalog.
+     */
+    public void update(Product product) {
+        if (!products.contains(product)) {
+            return;
+        }
+        version++;
+        for (StandingQuery query : queries) {
+            query.update(product);
+        }
+    }
+
+    public void remove(Product product) {
+        if (products.remove(product)) {
+            version++;
+            for (StandingQuery query : queries) {
+                query.remove(product);
+            }
+        }
+    }
+
+    /**
+     * The catalog is scanned once to fill the query, it is maintained incrementally from then on.
+     */
+    public StandingQuery register(AttributeFilter attributeFilter) {
+        StandingQuery query = new StandingQuery(attributeFilter);
+        for (Product product : products) {
+            query.offer(product);
+        }
+        queries.add(query);
+        return query;
+    }
+
+    public void unregister(StandingQuery query) {
+        queries.remove(query);
+    }
+
+    public Stream<Product> stream() {
+        return products.stream();
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.cedran.solid;
+
+import br.com.cedran.solid.OpenClosedPrinciple.Color;
+import br.com.cedran.solid.OpenClosedPrinciple.ColorFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.MultipleAttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Product;
+import br.com.cedran.solid.OpenClosedPrinciple.Size;
+import br.com.cedran.solid.OpenClosedPrinciple.SizeFilter;
+
+/**
+ * Dashboards run the same queries over and over against a catalog which barely changes, scanning all of it every time.
+ *
+ * A standing query is registered once and keeps its results materialized: every insert, update and removal in the
+ * catalog is checked against the registered queries only for the product being changed, so reading the results costs
+ * as much as the results themselves, not the catalog. Products are mutable, so after changing one its update must be
+ * reported to the catalog.
+ */
+public class StandingQueries {
+
+    public static void main(String[] args) {
+        ProductCatalog catalog = new ProductCatalog();
+        final var tShirt = new Product("TShirt", Color.BLUE, Size.SMALL);
+        catalog.insert(tShirt);
+        catalog.insert(new Product("Trousers", Color.GREEN, Size.LARGE));
+
+        StandingQuery greenLarge = catalog.register(new MultipleAttributeFilter(new ColorFilter(Color.GREEN), new SizeFilter(Size.LARGE)));
+        System.out.println("Green and Large products: " + greenLarge.results());
+
+        tShirt.color = Color.GREEN;
+        tShirt.size = Size.LARGE;
+        catalog.update(tShirt);
+        System.out.println("Green and Large products after the update: " + greenLarge.results());
+    }
+}
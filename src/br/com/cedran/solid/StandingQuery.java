@@ -0,0 +1,53 @@
+package br.com.cedran.solid;
+
+import br.com.cedran.solid.OpenClosedPrinciple.AttributeFilter;
+import br.com.cedran.solid.OpenClosedPrinciple.Product;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class StandingQuery {
+
+    private final AttributeFilter attributeFilter;
+    // products have no equals, so they are kept by identity
+    private final Set<Product> results = new LinkedHashSet<>();
+
+    StandingQuery(AttributeFilter attributeFilter) {
+        this.attributeFilter = attributeFilter;
+    }
+
+    void offer(Product product) {
+        if (attributeFilter.filter(product)) {
+            results.add(product);
+        }
+    }
+
+    /**
+     * Re-evaluates a changed product. A product that keeps matching stays where it was in the results, it is only
+     * removed when it stops matching and only appended when it starts to.
+     */
+    void update(Product product) {
+        if (attributeFilter.filter(product)) {
+            results.add(product);
+        } else {
+            results.remove(product);
+        }
+    }
+
+    void remove(Product product) {
+        results.remove(product);
+    }
+
+    /**
+     * Live read-only view of the products currently matching the query.
+     */
+    public Set<Product> results() {
+        return Collections.unmodifiableSet(results);
+    }
+
+    public Stream<Product> find() {
+        return results.stream();
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.cedran.structural.adapter;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Printing a formatted line on every cache miss costs more than the rasterization itself and it is all the
+ * observability the adapters had.
+ *
+ * The metrics are striped counters (LongAdder), so recording them from many rendering threads does not contend on a
+ * single memory location: cache lookups and misses, number of rasterized lines and points, time spent rasterizing and
+ * a histogram of points per line in power of two buckets. Evictions and the size of the cache come from the cache
+ * itself. Everything can be read as an immutable snapshot or through JMX.
+ */
+public class AdapterMetrics {
+
+    /**
+     * JMX needs the MBean interface to be public.
+     */
+    public interface LineCacheMetricsMBean {
+        long getLookups();
+
+        long getHits();
+
+        long getMisses();
+
+        long getEvictions();
+
+        long getRasterizedLines();
+
+        long getPointsGenerated();
+
+        long getRasterizationNanos();
+
+        int getCachedLines();
+
+        long getCachedBytes();
+    }
+
+    public static ObjectName register() throws JMException {
+        ObjectName name = new ObjectName("br.com.cedran.structural.adapter:type=LineCacheMetrics");
+        // every getter reads only its own counter, JMX clients usually poll the attributes one by one
+        LineCacheMetricsMBean bean = new LineCacheMetricsMBean() {
+            public long getLookups() {
+                return LineToPointAdapterCache.metrics().lookups();
+            }
+
+            public long getHits() {
+                LineCacheMetrics metrics = LineToPointAdapterCache.metrics();
+                long misses = metrics.misses();
+                return metrics.lookups() - misses;
+            }
+
+            public long getMisses() {
+                return LineToPointAdapterCache.metrics().misses();
+            }
+
+            public long getEvictions() {
+                return LineToPointAdapterCache.getCache().evictionCount();
+            }
+
+            public long getRasterizedLines() {
+                return LineToPointAdapterCache.metrics().rasterizedLines();
+            }
+
+            public long getPointsGenerated() {
+                return LineToPointAdapterCache.metrics().pointsGenerated();
+            }
+
+            public long getRasterizationNanos() {
+                return LineToPointAdapterCache.metrics().rasterizationNanos();
+            }
+
+            public int getCachedLines() {
+                return LineToPointAdapterCache.getCache().size();
+            }
+
+            public long getCachedBytes() {
+                return LineToPointAdapterCache.getCache().pointCount() * 2 * Integer.BYTES;
+            }
+        };
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(bean, LineCacheMetricsMBean.class), name);
+        return name;
+    }
+
+    public static void main(String[] args) throws JMException {
+        ObjectName name = register();
+        for (int i = 0; i < 3; i++) {
+            LineToPointAdapterCache.adapt(new VectorRectangle(1, 1, 100, 50), new PackedPoints());
+        }
+        System.out.println(LineToPointAdapterCache.metrics().snapshot(LineToPointAdapterCache.getCache()));
+        System.out.println("Hits through JMX: " + ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Hits"));
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.Objects;
+
+/**
+ * Axis aligned box, bounds are inclusive.
+ */
+class BoundingBox {
+    public final int left, top, right, bottom;
+
+    public BoundingBox(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public static BoundingBox of(Line line) {
+        return new BoundingBox(Math.min(line.start.x, line.end.x), Math.min(line.start.y, line.end.y),
+                Math.max(line.start.x, line.end.x), Math.max(line.start.y, line.end.y));
+    }
+
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(left, other.left), Math.min(top, other.top),
+                Math.max(right, other.right), Math.max(bottom, other.bottom));
+    }
+
+    public boolean intersects(BoundingBox other) {
+        return left <= other.right && other.left <= right && top <= other.bottom && other.top <= bottom;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= left && x <= right && y >= top && y <= bottom;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{" +
+                "left=" + left +
+                ", top=" + top +
+                ", right=" + right +
+                ", bottom=" + bottom +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BoundingBox that = (BoundingBox) o;
+        return left == that.left &&
+                top == that.top &&
+                right == that.right &&
+                bottom == that.bottom;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(left, top, right, bottom);
+    }
+}
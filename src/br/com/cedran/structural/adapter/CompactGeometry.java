@@ -0,0 +1,160 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.Arrays;
+
+/**
+ * A VectorObject is a list of lines, and every line holds two Point objects, so a single rectangle is about 11 heap
+ * objects. Scenes with millions of primitives pay for all those headers and pointers both in memory and when walking
+ * them.
+ *
+ * The packed scene stores the whole scene in a shared arena: one int array with the coordinates of every line
+ * (x0, y0, x1, y1) and one with the index of the first line of each object. It is immutable once built, it can be
+ * walked and hashed without allocating anything and it still hands out VectorObjects for the existing callers.
+ */
+public class CompactGeometry {
+
+    public static void main(String[] args) {
+        PackedScene scene = new PackedScene.Builder()
+                .rectangle(1, 1, 10, 10)
+                .rectangle(3, 3, 6, 6)
+                .build();
+
+        Framebuffer framebuffer = new Framebuffer(16, 16);
+        scene.rasterize(framebuffer::set);
+
+        for (int i = 0; i < scene.objectCount(); i++) {
+            System.out.println("Object " + i + " hash " + scene.hashCode(i) + ": " + scene.toVectorObject(i));
+        }
+    }
+}
+
+@FunctionalInterface
+interface LineCoordinatesConsumer {
+    void accept(int x0, int y0, int x1, int y1);
+}
+
+final class PackedScene {
+
+    private static final int INTS_PER_LINE = 4;
+
+    private final int[] coordinates;
+    // index of the first line of every object, plus the total number of lines at the end
+    private final int[] firstLines;
+
+    private PackedScene(int[] coordinates, int[] firstLines) {
+        this.coordinates = coordinates;
+        this.firstLines = firstLines;
+    }
+
+    public int objectCount() {
+        return firstLines.length - 1;
+    }
+
+    public int lineCount() {
+        return firstLines[firstLines.length - 1];
+    }
+
+    public int lineCount(int object) {
+        return firstLines[object + 1] - firstLines[object];
+    }
+
+    public void forEachLine(int object, LineCoordinatesConsumer action) {
+        final int[] coordinates = this.coordinates;
+        for (int i = firstLines[object] * INTS_PER_LINE, end = firstLines[object + 1] * INTS_PER_LINE; i < end; i += INTS_PER_LINE) {
+            action.accept(coordinates[i], coordinates[i + 1], coordinates[i + 2], coordinates[i + 3]);
+        }
+    }
+
+    public void forEachLine(LineCoordinatesConsumer action) {
+        final int[] coordinates = this.coordinates;
+        for (int i = 0, end = lineCount() * INTS_PER_LINE; i < end; i += INTS_PER_LINE) {
+            action.accept(coordinates[i], coordinates[i + 1], coordinates[i + 2], coordinates[i + 3]);
+        }
+    }
+
+    public void rasterize(PointConsumer out) {
+        forEachLine((x0, y0, x1, y1) -> LineToPointAdapter.rasterize(x0, y0, x1, y1, out));
+    }
+
+    /**
+     * Hash of the geometry of one object, computed straight from the coordinates.
+     */
+    public int hashCode(int object) {
+        int hash = 1;
+        for (int i = firstLines[object] * INTS_PER_LINE, end = firstLines[object + 1] * INTS_PER_LINE; i < end; i++) {
+            hash = 31 * hash + coordinates[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Copy of one object as a VectorObject, for callers which still work with lines and points.
+     */
+    public VectorObject toVectorObject(int object) {
+        VectorObject vo = new VectorObject();
+        forEachLine(object, (x0, y0, x1, y1) -> vo.add(new Line(new Point(x0, y0), new Point(x1, y1))));
+        return vo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PackedScene that = (PackedScene) o;
+        return Arrays.equals(coordinates, that.coordinates) &&
+                Arrays.equals(firstLines, that.firstLines);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(coordinates) + Arrays.hashCode(firstLines);
+    }
+
+    static class Builder {
+        private int[] coordinates = new int[64];
+        private int[] firstLines = new int[16];
+        private int lines = 0;
+        private int objects = 0;
+
+        public Builder object(Iterable<Line> lines) {
+            beginObject();
+            for (Line line : lines) {
+                line(line.start.x, line.start.y, line.end.x, line.end.y);
+            }
+            return this;
+        }
+
+        public Builder rectangle(int x, int y, int width, int height) {
+            beginObject();
+            line(x, y, x + width, y);
+            line(x, y, x, y + height);
+            line(x + width, y, x + width, y + height);
+            line(x, y + height, x + width, y + height);
+            return this;
+        }
+
+        public PackedScene build() {
+            int[] first = Arrays.copyOf(firstLines, objects + 1);
+            first[objects] = lines;
+            return new PackedScene(Arrays.copyOf(coordinates, lines * INTS_PER_LINE), first);
+        }
+
+        private void beginObject() {
+            if (objects + 1 >= firstLines.length) {
+                firstLines = Arrays.copyOf(firstLines, firstLines.length * 2);
+            }
+            firstLines[objects++] = lines;
+        }
+
+        private void line(int x0, int y0, int x1, int y1) {
+            if ((lines + 1) * INTS_PER_LINE > coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            }
+            int i = lines++ * INTS_PER_LINE;
+            coordinates[i] = x0;
+            coordinates[i + 1] = y0;
+            coordinates[i + 2] = x1;
+            coordinates[i + 3] = y1;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Cache for concurrent rendering. Lookups of cached lines are lock-free reads on a ConcurrentHashMap, and misses go
+ * through computeIfAbsent, so when several threads miss on the same line only one of them rasterizes it while the
+ * others wait for the result instead of duplicating the work.
+ *
+ * This one is not bounded, prefer it when the set of distinct lines is known to fit in memory.
+ */
+class ConcurrentLineRasterCache implements LineRasterCache {
+
+    private final ConcurrentHashMap<Line, PackedPoints> entries = new ConcurrentHashMap<>();
+    private final LongAdder points = new LongAdder();
+
+    @Override
+    public PackedPoints computeIfAbsent(Line line, Function<Line, PackedPoints> rasterizer) {
+        PackedPoints points = entries.get(line);
+        if (points != null) {
+            return points;
+        }
+        // lines are mutable, so the key must not be shared with the caller
+        return entries.computeIfAbsent(line.copy(), key -> {
+            PackedPoints rasterized = rasterizer.apply(key);
+            this.points.add(rasterized.size());
+            return rasterized;
+        });
+    }
+
+    @Override
+    public void put(Line line, PackedPoints points) {
+        PackedPoints previous = entries.put(line.copy(), points);
+        this.points.add(points.size() - (previous == null ? 0 : previous.size()));
+    }
+
+    @Override
+    public void forEach(BiConsumer<Line, PackedPoints> action) {
+        entries.forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public long pointCount() {
+        return points.sum();
+    }
+
+    @Override
+    public long evictionCount() {
+        return 0;
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.cedran.structural.adapter;
+
+/**
+ * Same output as the original example (a dot per pixel), but a single print per batch.
+ */
+class ConsolePointSink implements PointSink {
+
+    @Override
+    public void drawPoint(int x, int y) {
+        System.out.println(".");
+    }
+
+    @Override
+    public void drawPoints(int[] xs, int[] ys, int n) {
+        System.out.print(".\n".repeat(n));
+    }
+
+    @Override
+    public void drawPoints(PackedPoints points) {
+        System.out.print(".\n".repeat(points.size()));
+    }
+}
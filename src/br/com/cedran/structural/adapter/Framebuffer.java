@@ -0,0 +1,73 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.Arrays;
+
+/**
+ * In-memory framebuffer, one int per pixel (0 means the pixel is off). Points outside of it are ignored.
+ */
+class Framebuffer implements PointSink {
+
+    public static final int ON = 1;
+
+    private final int width, height;
+    private final int[] pixels;
+
+    public Framebuffer(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Framebuffer dimensions must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    public void set(int x, int y) {
+        set(x, y, ON);
+    }
+
+    public void set(int x, int y, int value) {
+        if (contains(x, y)) {
+            pixels[y * width + x] = value;
+        }
+    }
+
+    public int get(int x, int y) {
+        return contains(x, y) ? pixels[y * width + x] : 0;
+    }
+
+    @Override
+    public void drawPoint(int x, int y) {
+        set(x, y);
+    }
+
+    public void clear() {
+        Arrays.fill(pixels, 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Framebuffer that = (Framebuffer) o;
+        return width == that.width &&
+                height == that.height &&
+                Arrays.equals(pixels, that.pixels);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * width + height) + Arrays.hashCode(pixels);
+    }
+}
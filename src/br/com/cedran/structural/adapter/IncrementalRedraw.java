@@ -0,0 +1,127 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Redrawing a scene which did not change means walking and emitting all of it again for nothing.
+ *
+ * The retained scene remembers the version of every object and the points it contributed to the previous frame. On
+ * redraw only the objects whose version changed are rasterized again: their previous points are taken out of the
+ * framebuffer and the new ones are put in. Objects can overlap, so the scene keeps how many objects cover each pixel
+ * and a pixel is only turned off when nothing else covers it anymore. The region touched by the redraw is returned,
+ * which is all an output device needs to refresh.
+ */
+public class IncrementalRedraw {
+
+    public static void main(String[] args) {
+        VectorRectangle first = new VectorRectangle(1, 1, 10, 10);
+        VectorRectangle second = new VectorRectangle(3, 3, 6, 6);
+        RetainedScene scene = new RetainedScene(new Framebuffer(32, 32));
+        scene.add(first);
+        scene.add(second);
+
+        System.out.println("Damaged region: " + scene.redraw() + ", objects redrawn: " + scene.lastRedrawCount());
+        System.out.println("Damaged region: " + scene.redraw() + ", objects redrawn: " + scene.lastRedrawCount());
+
+        second.get(0).end.x += 4;
+        second.markDirty();
+        System.out.println("Damaged region: " + scene.redraw() + ", objects redrawn: " + scene.lastRedrawCount());
+    }
+}
+
+class RetainedScene {
+
+    private static final int NEVER_DRAWN = Integer.MIN_VALUE;
+
+    private final Framebuffer framebuffer;
+    private final int[] coverage;
+    private final Map<VectorObject, Contribution> contributions = new IdentityHashMap<>();
+    private int damageLeft, damageTop, damageRight, damageBottom;
+    private int lastRedrawCount = 0;
+
+    public RetainedScene(Framebuffer framebuffer) {
+        this.framebuffer = framebuffer;
+        this.coverage = new int[framebuffer.width() * framebuffer.height()];
+        resetDamage();
+    }
+
+    public void add(VectorObject vo) {
+        contributions.putIfAbsent(vo, new Contribution());
+    }
+
+    /**
+     * The object is taken out of the framebuffer right away, the region it covered is reported by the next redraw.
+     */
+    public void remove(VectorObject vo) {
+        Contribution contribution = contributions.remove(vo);
+        if (contribution != null) {
+            uncover(contribution.points);
+        }
+    }
+
+    /**
+     * Rasterizes the objects which changed since the previous redraw and returns the region of the framebuffer which
+     * has been touched, or null when nothing changed.
+     */
+    public BoundingBox redraw() {
+        lastRedrawCount = 0;
+        for (Map.Entry<VectorObject, Contribution> entry : contributions.entrySet()) {
+            VectorObject vo = entry.getKey();
+            Contribution contribution = entry.getValue();
+            int version = vo.version();
+            if (version == contribution.version) {
+                continue;
+            }
+            uncover(contribution.points);
+            contribution.points.clear();
+            LineToPointAdapterCache.adapt(vo, contribution.points);
+            cover(contribution.points);
+            contribution.version = version;
+            lastRedrawCount++;
+        }
+        BoundingBox damaged = damageLeft > damageRight ? null
+                : new BoundingBox(damageLeft, damageTop, damageRight, damageBottom);
+        resetDamage();
+        return damaged;
+    }
+
+    public int lastRedrawCount() {
+        return lastRedrawCount;
+    }
+
+    private void cover(PackedPoints points) {
+        points.forEachXY((x, y) -> {
+            if (framebuffer.contains(x, y) && coverage[y * framebuffer.width() + x]++ == 0) {
+                framebuffer.set(x, y);
+                damage(x, y);
+            }
+        });
+    }
+
+    private void uncover(PackedPoints points) {
+        points.forEachXY((x, y) -> {
+            if (framebuffer.contains(x, y) && --coverage[y * framebuffer.width() + x] == 0) {
+                framebuffer.set(x, y, 0);
+                damage(x, y);
+            }
+        });
+    }
+
+    private void damage(int x, int y) {
+        damageLeft = Math.min(damageLeft, x);
+        damageTop = Math.min(damageTop, y);
+        damageRight = Math.max(damageRight, x);
+        damageBottom = Math.max(damageBottom, y);
+    }
+
+    private void resetDamage() {
+        damageLeft = damageTop = Integer.MAX_VALUE;
+        damageRight = damageBottom = Integer.MIN_VALUE;
+    }
+
+    private static class Contribution {
+        private int version = NEVER_DRAWN;
+        private final PackedPoints points = new PackedPoints();
+    }
+}
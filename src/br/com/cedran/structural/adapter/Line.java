@@ -0,0 +1,38 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.Objects;
+
+class Line {
+    public Point start, end;
+
+    public Line(Point start, Point end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public Line copy() {
+        return new Line(new Point(start.x, start.y), new Point(end.x, end.y));
+    }
+
+    @Override
+    public String toString() {
+        return "Line{" +
+                "start=" + start +
+                ", end=" + end +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Line line = (Line) o;
+        return Objects.equals(start, line.start) &&
+                Objects.equals(end, line.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 + Objects.hashCode(start)) + Objects.hashCode(end);
+    }
+}
@@ -0,0 +1,120 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+class LineCacheMetrics {
+
+    // bucket i counts the lines with [2^(i-1), 2^i) points, bucket 0 the lines without points
+    private static final int BUCKETS = Integer.SIZE + 1;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rasterizedLines = new LongAdder();
+    private final LongAdder pointsGenerated = new LongAdder();
+    private final LongAdder rasterizationNanos = new LongAdder();
+    private final LongAdder[] pointsPerLine = new LongAdder[BUCKETS];
+
+    public LineCacheMetrics() {
+        for (int i = 0; i < BUCKETS; i++) {
+            pointsPerLine[i] = new LongAdder();
+        }
+    }
+
+    public void recordLookups(long count) {
+        lookups.add(count);
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordRasterization(int points, long nanos) {
+        rasterizedLines.increment();
+        pointsGenerated.add(points);
+        rasterizationNanos.add(nanos);
+        pointsPerLine[Integer.SIZE - Integer.numberOfLeadingZeros(points)].increment();
+    }
+
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long rasterizedLines() {
+        return rasterizedLines.sum();
+    }
+
+    public long pointsGenerated() {
+        return pointsGenerated.sum();
+    }
+
+    public long rasterizationNanos() {
+        return rasterizationNanos.sum();
+    }
+
+    public Snapshot snapshot(LineRasterCache cache) {
+        long[] histogram = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = pointsPerLine[i].sum();
+        }
+        // every miss is recorded after its lookup, so reading the misses first keeps them within the lookups
+        long misses = this.misses.sum();
+        return new Snapshot(lookups.sum(), misses, cache.evictionCount(), rasterizedLines.sum(),
+                pointsGenerated.sum(), rasterizationNanos.sum(), histogram, cache.size(),
+                cache.pointCount() * 2 * Integer.BYTES);
+    }
+
+    /**
+     * Counters are read one after the other, so a snapshot taken while drawing is not an atomic view across them.
+     */
+    static class Snapshot {
+        public final long lookups, misses, evictions, rasterizedLines, pointsGenerated, rasterizationNanos;
+        public final int cachedLines;
+        public final long cachedBytes;
+        private final long[] pointsPerLine;
+
+        Snapshot(long lookups, long misses, long evictions, long rasterizedLines, long pointsGenerated,
+                 long rasterizationNanos, long[] pointsPerLine, int cachedLines, long cachedBytes) {
+            this.lookups = lookups;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.rasterizedLines = rasterizedLines;
+            this.pointsGenerated = pointsGenerated;
+            this.rasterizationNanos = rasterizationNanos;
+            this.pointsPerLine = pointsPerLine;
+            this.cachedLines = cachedLines;
+            this.cachedBytes = cachedBytes;
+        }
+
+        public long hits() {
+            return lookups - misses;
+        }
+
+        /**
+         * Number of rasterized lines with at least 2^(bucket-1) and less than 2^bucket points.
+         */
+        public long pointsPerLine(int bucket) {
+            return pointsPerLine[bucket];
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                    "lookups=" + lookups +
+                    ", hits=" + hits() +
+                    ", misses=" + misses +
+                    ", evictions=" + evictions +
+                    ", rasterizedLines=" + rasterizedLines +
+                    ", pointsGenerated=" + pointsGenerated +
+                    ", rasterizationNanos=" + rasterizationNanos +
+                    ", cachedLines=" + cachedLines +
+                    ", cachedBytes=" + cachedBytes +
+                    ", pointsPerLine=" + Arrays.toString(pointsPerLine) +
+                    '}';
+        }
+    }
+}
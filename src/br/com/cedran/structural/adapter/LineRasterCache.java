@@ -0,0 +1,25 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+interface LineRasterCache {
+
+    /**
+     * Returns the points of the given line, rasterizing (and caching) them if they are not cached yet.
+     */
+    PackedPoints computeIfAbsent(Line line, Function<Line, PackedPoints> rasterizer);
+
+    void put(Line line, PackedPoints points);
+
+    void forEach(BiConsumer<Line, PackedPoints> action);
+
+    int size();
+
+    /**
+     * Total number of cached points, each one costs two ints.
+     */
+    long pointCount();
+
+    long evictionCount();
+}
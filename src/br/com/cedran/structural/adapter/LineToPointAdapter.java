@@ -0,0 +1,109 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+class LineToPointAdapter extends ArrayList<Point> {
+
+    // the uncached adapter has counters of its own, its rasterizations are not cache misses
+    private static final LineCacheMetrics metrics = new LineCacheMetrics();
+
+    public LineToPointAdapter(Line line) {
+        long start = System.nanoTime();
+        rasterize(line, (x, y) -> add(new Point(x, y)));
+        metrics.recordRasterization(size(), System.nanoTime() - start);
+    }
+
+    public static LineCacheMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Integer Bresenham, it works for lines in any direction (not only horizontal and vertical ones) and emits the
+     * points in order from the start to the end of the line.
+     */
+    public static void rasterize(Line line, PointConsumer out) {
+        rasterize(line.start.x, line.start.y, line.end.x, line.end.y, out);
+    }
+
+    public static void rasterize(int x0, int y0, int x1, int y1, PointConsumer out) {
+        rasterize(x0, y0, x1, y1, 0, Integer.MAX_VALUE, out);
+    }
+
+    /**
+     * Emits only the points from step {@code from} to step {@code to} (both inclusive) of the line, steps being
+     * counted along its major axis. The error term of the first step is computed in closed form instead of walking the
+     * line up to it, so a clipped stretch costs only its own length and has exactly the pixels of the whole line.
+     */
+    public static void rasterize(int x0, int y0, int x1, int y1, int from, int to, PointConsumer out) {
+        final int dx = Math.abs(x1 - x0), sx = x0 < x1 ? 1 : -1;
+        final int dy = Math.abs(y1 - y0), sy = y0 < y1 ? 1 : -1;
+        final boolean xMajor = dx >= dy;
+        final int major = xMajor ? dx : dy, minor = xMajor ? dy : dx;
+        from = Math.max(from, 0);
+        to = Math.min(to, major);
+        if (from > to) {
+            return;
+        }
+        // a step always moves along the major axis and sometimes along the minor one
+        final int majorX = xMajor ? sx : 0, majorY = xMajor ? 0 : sy;
+        final int minorX = xMajor ? 0 : sx, minorY = xMajor ? sy : 0;
+        int minorOffset = minorOffset(major, minor, from);
+        int x = x0 + majorX * from + minorX * minorOffset;
+        int y = y0 + majorY * from + minorY * minorOffset;
+        long error = 2L * minor * (from + 1) - major - 2L * major * minorOffset;
+        for (int step = from; step <= to; step++) {
+            out.accept(x, y);
+            if (error > 0) {
+                x += minorX;
+                y += minorY;
+                error -= 2L * major;
+            }
+            error += 2L * minor;
+            x += majorX;
+            y += majorY;
+        }
+    }
+
+    /**
+     * How many times the line moved along its minor axis after {@code step} steps along the major one.
+     */
+    static int minorOffset(int major, int minor, int step) {
+        long numerator = 2L * minor * step - major;
+        return numerator <= 0 ? 0 : (int) ((numerator + 2L * major - 1) / (2L * major));
+    }
+
+    /**
+     * Inverse of {@link #minorOffset}: the first step at which the line has moved {@code offset} times along its minor
+     * axis, or {@link Long#MAX_VALUE} if it never does.
+     */
+    static long firstStepAt(int major, int minor, int offset) {
+        if (offset <= 0) {
+            return 0;
+        }
+        return minor == 0 ? Long.MAX_VALUE : (2L * major * offset - major) / (2L * minor) + 1;
+    }
+
+    /**
+     * Batch version of the adapter: appends the points of all the lines (e.g. a whole VectorObject) to a single
+     * reusable buffer, without creating an adapter object per line.
+     */
+    public static PackedPoints rasterize(Iterable<Line> lines, PackedPoints out) {
+        for (Line line : lines) {
+            rasterize(line, out::add);
+        }
+        return out;
+    }
+
+    public static PackedPoints rasterize(Line[] lines, PackedPoints out) {
+        return rasterize(Arrays.asList(lines), out);
+    }
+
+    /**
+     * Number of points the line produces, handy to size buffers upfront.
+     */
+    public static int pointCount(Line line) {
+        return Math.max(Math.abs(line.end.x - line.start.x), Math.abs(line.end.y - line.start.y)) + 1;
+    }
+
+}
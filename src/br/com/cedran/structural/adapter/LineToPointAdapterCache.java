@@ -0,0 +1,105 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * When using adapters, it very common to create the same object many times and when it happens it is good to
+ * have a caching mechanism in place.
+ *
+ * In translation invariant mode lines are cached by their shape (dx, dy and direction) rather than by their position:
+ * the line is moved to the origin before being rasterized and its start point is added back while iterating. Two
+ * lines with the same length and orientation share the same entry, e.g. the edges of identically sized rectangles.
+ */
+class LineToPointAdapterCache implements Iterable<Point> {
+
+    private static final LineCacheMetrics metrics = new LineCacheMetrics();
+    private static volatile LineRasterCache cache = new LruLineRasterCache(LruLineRasterCache.DEFAULT_CAPACITY);
+    private static volatile boolean translationInvariant = false;
+    private final PackedPoints points;
+    private final int offsetX, offsetY;
+
+    public LineToPointAdapterCache(Line line) {
+        metrics.recordLookups(1);
+        if (translationInvariant) {
+            offsetX = line.start.x;
+            offsetY = line.start.y;
+            points = cache.computeIfAbsent(shapeOf(line), LineToPointAdapterCache::rasterize);
+        } else {
+            offsetX = 0;
+            offsetY = 0;
+            points = cache.computeIfAbsent(line, LineToPointAdapterCache::rasterize);
+        }
+    }
+
+    /**
+     * Batch version of the cached adapter: appends the points of all the lines to a single reusable buffer, without
+     * creating an adapter object per line.
+     */
+    public static PackedPoints adapt(Iterable<Line> lines, PackedPoints out) {
+        final boolean translationInvariant = LineToPointAdapterCache.translationInvariant;
+        for (Line line : lines) {
+            // recorded before a possible miss, so the hits never go negative
+            metrics.recordLookups(1);
+            if (translationInvariant) {
+                out.addAll(cache.computeIfAbsent(shapeOf(line), LineToPointAdapterCache::rasterize), line.start.x, line.start.y);
+            } else {
+                out.addAll(cache.computeIfAbsent(line, LineToPointAdapterCache::rasterize), 0, 0);
+            }
+        }
+        return out;
+    }
+
+    public static PackedPoints adapt(Line[] lines, PackedPoints out) {
+        return adapt(Arrays.asList(lines), out);
+    }
+
+    private static Line shapeOf(Line line) {
+        return new Line(new Point(0, 0), new Point(line.end.x - line.start.x, line.end.y - line.start.y));
+    }
+
+    private static PackedPoints rasterize(Line line) {
+        long start = System.nanoTime();
+        PackedPoints points = new PackedPoints(LineToPointAdapter.pointCount(line));
+        LineToPointAdapter.rasterize(line, points::add);
+        metrics.recordMiss();
+        metrics.recordRasterization(points.size(), System.nanoTime() - start);
+        return points.trim();
+    }
+
+    public static LineCacheMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Replaces the shared cache, e.g. to configure a different capacity or to switch to the concurrent one when
+     * drawing from multiple threads.
+     */
+    public static void setCache(LineRasterCache cache) {
+        LineToPointAdapterCache.cache = cache;
+    }
+
+    public static LineRasterCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Entries of both modes are keyed differently, so the cache should be replaced (or cleared) when switching.
+     */
+    public static void setTranslationInvariant(boolean translationInvariant) {
+        LineToPointAdapterCache.translationInvariant = translationInvariant;
+    }
+
+    public static boolean isTranslationInvariant() {
+        return translationInvariant;
+    }
+
+    public void forEachXY(PointConsumer action) {
+        points.forEachXY(offsetX, offsetY, action);
+    }
+
+    @Override
+    public Iterator<Point> iterator() {
+        return points.iterator(offsetX, offsetY);
+    }
+}
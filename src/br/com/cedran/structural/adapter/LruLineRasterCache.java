@@ -0,0 +1,106 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Keying the cache by line.hashCode() means two different lines with colliding hashes share the same pixels, and an
+ * unbounded map leaks memory in a long-running process.
+ *
+ * This cache is keyed by the full line geometry and bounded by the total number of cached points (each point costs
+ * two ints). Entries are weighted by their point count and evicted in least recently used order, and lines bigger than
+ * maxEntryWeight are not admitted at all, so a few huge lines cannot evict thousands of small ones.
+ *
+ * Every access reorders the entries, so all methods are synchronized. Use ConcurrentLineRasterCache when rendering
+ * from several threads.
+ */
+class LruLineRasterCache implements LineRasterCache {
+
+    public static final long DEFAULT_CAPACITY = 1 << 20;
+
+    private final long capacity;
+    private final long maxEntryWeight;
+    private final LinkedHashMap<Line, PackedPoints> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight = 0;
+    private long evictions = 0;
+
+    public LruLineRasterCache(long capacity) {
+        this(capacity, Math.max(capacity / 8, 1));
+    }
+
+    public LruLineRasterCache(long capacity, long maxEntryWeight) {
+        if (capacity <= 0 || maxEntryWeight <= 0) {
+            throw new IllegalArgumentException("Capacity and max entry weight must be positive");
+        }
+        this.capacity = capacity;
+        this.maxEntryWeight = Math.min(maxEntryWeight, capacity);
+    }
+
+    @Override
+    public synchronized PackedPoints computeIfAbsent(Line line, Function<Line, PackedPoints> rasterizer) {
+        PackedPoints points = entries.get(line);
+        if (points == null) {
+            points = rasterizer.apply(line);
+            put(line, points);
+        }
+        return points;
+    }
+
+    public synchronized PackedPoints get(Line line) {
+        return entries.get(line);
+    }
+
+    @Override
+    public synchronized void put(Line line, PackedPoints points) {
+        long entryWeight = weight(points);
+        if (entryWeight > maxEntryWeight) {
+            return;
+        }
+        // lines are mutable, so the key must not be shared with the caller
+        PackedPoints previous = entries.put(line.copy(), points);
+        if (previous != null) {
+            weight -= weight(previous);
+        }
+        weight += entryWeight;
+        evict();
+    }
+
+    @Override
+    public synchronized void forEach(BiConsumer<Line, PackedPoints> action) {
+        entries.forEach(action);
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    @Override
+    public synchronized long pointCount() {
+        return weight;
+    }
+
+    @Override
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    private void evict() {
+        Iterator<PackedPoints> eldest = entries.values().iterator();
+        while (weight > capacity && eldest.hasNext()) {
+            weight -= weight(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static long weight(PackedPoints points) {
+        return Math.max(points.size(), 1);
+    }
+}
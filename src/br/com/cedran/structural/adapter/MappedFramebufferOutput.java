@@ -0,0 +1,111 @@
+package br.com.cedran.structural.adapter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * When the rendered frame has to be consumed by another process, writing it to a stream means copying every pixel at
+ * least once more (user space buffer, kernel buffer, reader buffer).
+ *
+ * The mapped framebuffer is a netpbm file (PGM for grayscale, PPM for RGB) mapped into memory with FileChannel.map:
+ * points are written straight into the page cache and any process mapping or reading the same file sees them without
+ * further copies. The mapping is forced to the storage device on flush, i.e. at frame boundaries.
+ */
+public class MappedFramebufferOutput {
+
+    public static void main(String[] args) throws IOException {
+        Path file = Files.createTempFile("frame", ".ppm");
+        try (MappedFramebuffer framebuffer = new MappedFramebuffer(file, 16, 16, PixelFormat.RGB24)) {
+            framebuffer.setColor(0xFF0000);
+            framebuffer.drawPoints(LineToPointAdapter.rasterize(new VectorRectangle(1, 1, 10, 10), new PackedPoints()));
+            framebuffer.flush();
+        }
+        System.out.println("Frame written to " + file + " (" + Files.size(file) + " bytes)");
+    }
+}
+
+enum PixelFormat {
+    GRAY8("P5", 1),
+    RGB24("P6", 3);
+
+    final String magicNumber;
+    final int bytesPerPixel;
+
+    PixelFormat(String magicNumber, int bytesPerPixel) {
+        this.magicNumber = magicNumber;
+        this.bytesPerPixel = bytesPerPixel;
+    }
+}
+
+class MappedFramebuffer implements PointSink, AutoCloseable {
+
+    private final int width, height;
+    private final PixelFormat format;
+    private final FileChannel channel;
+    private final MappedByteBuffer pixels;
+    private final int headerSize;
+    private int color = 0xFFFFFF;
+
+    public MappedFramebuffer(Path file, int width, int height, PixelFormat format) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Framebuffer dimensions must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.format = format;
+
+        byte[] header = (format.magicNumber + "\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII);
+        this.headerSize = header.length;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.pixels = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize + (long) width * height * format.bytesPerPixel);
+        pixels.put(0, header);
+    }
+
+    /**
+     * Color of the points drawn from now on, as 0xRRGGBB. Grayscale framebuffers use the average of the channels.
+     */
+    public void setColor(int color) {
+        this.color = color;
+    }
+
+    @Override
+    public void drawPoint(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return;
+        }
+        final int red = (color >> 16) & 0xFF, green = (color >> 8) & 0xFF, blue = color & 0xFF;
+        int offset = headerSize + (y * width + x) * format.bytesPerPixel;
+        if (format == PixelFormat.GRAY8) {
+            pixels.put(offset, (byte) ((red + green + blue) / 3));
+        } else {
+            pixels.put(offset, (byte) red);
+            pixels.put(offset + 1, (byte) green);
+            pixels.put(offset + 2, (byte) blue);
+        }
+    }
+
+    /**
+     * Frame boundary: makes sure the frame is written to the storage device.
+     */
+    @Override
+    public void flush() {
+        pixels.force();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
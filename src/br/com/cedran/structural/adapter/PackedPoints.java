@@ -0,0 +1,139 @@
+package br.com.cedran.structural.adapter;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Keeping every pixel as a Point object inside a list costs an object header per pixel plus the list overhead.
+ * This buffer keeps the coordinates interleaved (x0, y0, x1, y1, ...) in a single int array and only creates Point
+ * objects when it is iterated through the Iterable contract. Hot loops should use forEachXY instead.
+ */
+class PackedPoints implements Iterable<Point> {
+
+    private int[] coordinates;
+    private int size;
+
+    public PackedPoints() {
+        this(16);
+    }
+
+    public PackedPoints(int capacity) {
+        coordinates = new int[Math.max(capacity, 1) * 2];
+    }
+
+    public void add(int x, int y) {
+        ensureCapacity(size + 1);
+        coordinates[size * 2] = x;
+        coordinates[size * 2 + 1] = y;
+        size++;
+    }
+
+    /**
+     * Appends all the points of the other buffer translated by the given offset.
+     */
+    public void addAll(PackedPoints other, int offsetX, int offsetY) {
+        ensureCapacity(size + other.size);
+        final int length = other.size * 2;
+        if (offsetX == 0 && offsetY == 0) {
+            System.arraycopy(other.coordinates, 0, coordinates, size * 2, length);
+        } else {
+            for (int i = 0, j = size * 2; i < length; i += 2, j += 2) {
+                coordinates[j] = other.coordinates[i] + offsetX;
+                coordinates[j + 1] = other.coordinates[i + 1] + offsetY;
+            }
+        }
+        size += other.size;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity * 2 > coordinates.length) {
+            coordinates = Arrays.copyOf(coordinates, Math.max(capacity * 2, coordinates.length * 2));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int x(int index) {
+        return coordinates[index * 2];
+    }
+
+    public int y(int index) {
+        return coordinates[index * 2 + 1];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Bulk copy of the interleaved coordinates into the buffer.
+     */
+    public void writeTo(IntBuffer buffer) {
+        buffer.put(coordinates, 0, size * 2);
+    }
+
+    /**
+     * Bulk copy of the given number of points (interleaved coordinates) out of the buffer.
+     */
+    public static PackedPoints readFrom(IntBuffer buffer, int size) {
+        PackedPoints points = new PackedPoints(size);
+        buffer.get(points.coordinates, 0, size * 2);
+        points.size = size;
+        return points;
+    }
+
+    /**
+     * Shrinks the backing array to the number of points, useful before keeping the buffer around (e.g. in a cache).
+     */
+    public PackedPoints trim() {
+        if (coordinates.length > size * 2) {
+            coordinates = Arrays.copyOf(coordinates, size * 2);
+        }
+        return this;
+    }
+
+    public void forEachXY(PointConsumer action) {
+        forEachXY(0, 0, action);
+    }
+
+    /**
+     * Same as forEachXY(action), but translating every point by the given offset.
+     */
+    public void forEachXY(int offsetX, int offsetY, PointConsumer action) {
+        final int[] coordinates = this.coordinates;
+        final int length = size * 2;
+        for (int i = 0; i < length; i += 2) {
+            action.accept(coordinates[i] + offsetX, coordinates[i + 1] + offsetY);
+        }
+    }
+
+    @Override
+    public Iterator<Point> iterator() {
+        return iterator(0, 0);
+    }
+
+    public Iterator<Point> iterator(int offsetX, int offsetY) {
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Point next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                Point point = new Point(x(index) + offsetX, y(index) + offsetY);
+                index++;
+                return point;
+            }
+        };
+    }
+}
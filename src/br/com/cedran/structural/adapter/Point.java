@@ -0,0 +1,35 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.Objects;
+
+class Point {
+    public int x, y;
+
+    public Point(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public String toString() {
+        return "Point{" +
+                "x=" + x +
+                ", y=" + y +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Point point = (Point) o;
+        return x == point.x &&
+                y == point.y;
+    }
+
+    @Override
+    public int hashCode() {
+        // same value as Objects.hash(x, y), without boxing the coordinates into a varargs array
+        return 31 * (31 + x) + y;
+    }
+}
@@ -0,0 +1,6 @@
+package br.com.cedran.structural.adapter;
+
+@FunctionalInterface
+interface PointConsumer {
+    void accept(int x, int y);
+}
@@ -0,0 +1,29 @@
+package br.com.cedran.structural.adapter;
+
+/**
+ * Sinks only have to draw a single point. The batch and packed versions default to a plain loop over it, without
+ * copying nor allocating anything, and sinks which can do better with a whole batch (a single print, a bulk write)
+ * override them.
+ */
+interface PointSink {
+
+    void drawPoint(int x, int y);
+
+    default void drawPoints(int[] xs, int[] ys, int n) {
+        for (int i = 0; i < n; i++) {
+            drawPoint(xs[i], ys[i]);
+        }
+    }
+
+    default void drawPoints(PackedPoints points) {
+        for (int i = 0; i < points.size(); i++) {
+            drawPoint(points.x(i), points.y(i));
+        }
+    }
+
+    /**
+     * Frame boundary, sinks which buffer their output must write it out here.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,120 @@
+package br.com.cedran.structural.adapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
+
+/**
+ * Printing every single pixel with System.out.println means a synchronized and flushing I/O call in the innermost loop
+ * of the drawing, so the throughput is bound by the console rather than by the rasterization.
+ *
+ * The point sinks receive the points one by one or in batches (drawPoints) and write them either into memory (int[] or
+ * BitSet framebuffers) or into a buffered NIO channel, which is only written to when its buffer is full or flushed.
+ */
+public class PointSinks {
+
+    public static void main(String[] args) {
+        PackedPoints points = LineToPointAdapter.rasterize(new VectorRectangle(1, 1, 10, 10), new PackedPoints());
+
+        Framebuffer framebuffer = new Framebuffer(16, 16);
+        framebuffer.drawPoints(points);
+        System.out.println("Framebuffer pixel (1, 1): " + framebuffer.get(1, 1));
+
+        BitSetPointSink bitSet = new BitSetPointSink(16, 16);
+        bitSet.drawPoints(points);
+        System.out.println("BitSet pixels on: " + bitSet.cardinality());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ChannelPointSink channel = new ChannelPointSink(Channels.newChannel(bytes), 64)) {
+            channel.drawPoints(points);
+        }
+        System.out.println("Bytes written to the channel: " + bytes.size());
+    }
+}
+
+/**
+ * One bit per pixel framebuffer, 32 times smaller than the int[] one when only on/off matters.
+ */
+class BitSetPointSink implements PointSink {
+
+    private final int width, height;
+    private final BitSet pixels;
+
+    public BitSetPointSink(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.pixels = new BitSet(width * height);
+    }
+
+    @Override
+    public void drawPoint(int x, int y) {
+        if (x >= 0 && y >= 0 && x < width && y < height) {
+            pixels.set(y * width + x);
+        }
+    }
+
+    public boolean get(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && pixels.get(y * width + x);
+    }
+
+    public int cardinality() {
+        return pixels.cardinality();
+    }
+}
+
+/**
+ * Writes every point as two ints (x and y) into a byte buffer, which only goes to the channel when it is full, on
+ * flush or on close.
+ */
+class ChannelPointSink implements PointSink, AutoCloseable {
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    public ChannelPointSink(WritableByteChannel channel) {
+        this(channel, 64 * 1024);
+    }
+
+    public ChannelPointSink(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < Integer.BYTES * 2) {
+            throw new IllegalArgumentException("Buffer must fit at least one point");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @Override
+    public void drawPoint(int x, int y) {
+        if (buffer.remaining() < Integer.BYTES * 2) {
+            write();
+        }
+        buffer.putInt(x).putInt(y);
+    }
+
+    @Override
+    public void flush() {
+        write();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void write() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+}
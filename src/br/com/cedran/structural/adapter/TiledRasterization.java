@@ -0,0 +1,192 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Walking every VectorObject and every line on a single thread does not scale to scenes with hundreds of thousands of
+ * objects.
+ *
+ * The tiled rasterizer splits the canvas in square tiles and bins each line into the tiles it actually crosses, along
+ * with the range of Bresenham steps that falls inside each one. Tiles are then rasterized in parallel on a
+ * ForkJoinPool, each one walking only its own stretch of the line and writing only the pixels inside its own bounds, so
+ * they can share the same framebuffer without any locking and a long line costs about its length in total, not its
+ * length once per tile. Setting a pixel is idempotent and the stretches start from the exact error term of the whole
+ * line, hence the output is exactly the same as the one of the sequential path regardless of the order the tiles run.
+ */
+public class TiledRasterization {
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        List<VectorObject> scene = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            scene.add(new VectorRectangle(random.nextInt(2000), random.nextInt(2000), 1 + random.nextInt(40), 1 + random.nextInt(40)));
+        }
+        for (int i = 0; i < 2_000; i++) {
+            scene.add(new VectorObject());
+            scene.get(scene.size() - 1).add(new Line(new Point(random.nextInt(2048), 0), new Point(random.nextInt(2048), 2047)));
+        }
+
+        Framebuffer sequential = new Framebuffer(2048, 2048);
+        Framebuffer tiled = new Framebuffer(2048, 2048);
+        TiledRasterizer rasterizer = new TiledRasterizer(64);
+        long sequentialNanos = Long.MAX_VALUE, tiledNanos = Long.MAX_VALUE;
+        // a few rounds so that both paths are measured after the JIT has warmed up
+        for (int round = 0; round < 5; round++) {
+            sequential.clear();
+            long start = System.nanoTime();
+            TiledRasterizer.rasterizeSequentially(scene, sequential);
+            sequentialNanos = Math.min(sequentialNanos, System.nanoTime() - start);
+
+            tiled.clear();
+            start = System.nanoTime();
+            rasterizer.rasterize(scene, tiled);
+            tiledNanos = Math.min(tiledNanos, System.nanoTime() - start);
+        }
+        System.out.println("Sequential: " + sequentialNanos / 1_000_000 + "ms");
+        System.out.println("Tiled: " + tiledNanos / 1_000_000 + "ms on " + ForkJoinPool.commonPool().getParallelism() + " worker(s)");
+        System.out.printf("Speedup: %.2fx%n", (double) sequentialNanos / tiledNanos);
+        System.out.println("Same output: " + sequential.equals(tiled));
+    }
+}
+
+class TiledRasterizer {
+
+    private final int tileSize;
+    private final ForkJoinPool pool;
+
+    public TiledRasterizer(int tileSize) {
+        this(tileSize, ForkJoinPool.commonPool());
+    }
+
+    public TiledRasterizer(int tileSize, ForkJoinPool pool) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size must be positive");
+        }
+        this.tileSize = tileSize;
+        this.pool = pool;
+    }
+
+    public static void rasterizeSequentially(Iterable<? extends VectorObject> scene, Framebuffer framebuffer) {
+        for (VectorObject vo : scene) {
+            for (Line line : vo) {
+                LineToPointAdapter.rasterize(line, framebuffer::set);
+            }
+        }
+    }
+
+    public void rasterize(Iterable<? extends VectorObject> scene, Framebuffer framebuffer) {
+        int columns = (framebuffer.width() + tileSize - 1) / tileSize;
+        int rows = (framebuffer.height() + tileSize - 1) / tileSize;
+        Tile[] tiles = new Tile[columns * rows];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = new Tile();
+        }
+
+        for (VectorObject vo : scene) {
+            for (Line line : vo) {
+                bin(line, tiles, columns, framebuffer.width(), framebuffer.height());
+            }
+        }
+
+        pool.invoke(new RasterizeTiles(tiles, 0, tiles.length, framebuffer));
+    }
+
+    /**
+     * Adds the line only to the tiles it really crosses, not to every tile of its bounding box, together with the
+     * exact stretch of steps whose pixels fall in each of them. The line is walked one band of tiles at a time along its
+     * major axis; the minor axis range of each band, and the steps at which the line enters and leaves each tile of it,
+     * come from the closed form of the Bresenham error term.
+     */
+    private void bin(Line line, Tile[] tiles, int columns, int width, int height) {
+        final boolean xMajor = Math.abs(line.end.x - line.start.x) >= Math.abs(line.end.y - line.start.y);
+        final int majorStart = xMajor ? line.start.x : line.start.y, majorEnd = xMajor ? line.end.x : line.end.y;
+        final int minorStart = xMajor ? line.start.y : line.start.x, minorEnd = xMajor ? line.end.y : line.end.x;
+        final int majorLimit = xMajor ? width : height, minorLimit = xMajor ? height : width;
+        final int major = Math.abs(majorEnd - majorStart), minor = Math.abs(minorEnd - minorStart);
+        final int majorSign = majorStart < majorEnd ? 1 : -1, minorSign = minorStart < minorEnd ? 1 : -1;
+
+        int low = Math.max(Math.min(majorStart, majorEnd), 0);
+        int high = Math.min(Math.max(majorStart, majorEnd), majorLimit - 1);
+        for (int band = low / tileSize; low <= high && band <= high / tileSize; band++) {
+            int firstStep = (Math.max(band * tileSize, low) - majorStart) * majorSign;
+            int lastStep = (Math.min(band * tileSize + tileSize - 1, high) - majorStart) * majorSign;
+            int from = Math.min(firstStep, lastStep), to = Math.max(firstStep, lastStep);
+
+            int minorFrom = minorStart + minorSign * LineToPointAdapter.minorOffset(major, minor, from);
+            int minorTo = minorStart + minorSign * LineToPointAdapter.minorOffset(major, minor, to);
+            int minorLow = Math.max(Math.min(minorFrom, minorTo), 0);
+            int minorHigh = Math.min(Math.max(minorFrom, minorTo), minorLimit - 1);
+            for (int cross = minorLow / tileSize; minorLow <= minorHigh && cross <= minorHigh / tileSize; cross++) {
+                int crossLow = cross * tileSize, crossHigh = Math.min(crossLow + tileSize, minorLimit) - 1;
+                int enter = minorSign > 0 ? crossLow - minorStart : minorStart - crossHigh;
+                int leave = minorSign > 0 ? crossHigh - minorStart : minorStart - crossLow;
+                long stepFrom = Math.max(from, LineToPointAdapter.firstStepAt(major, minor, enter));
+                long stepTo = Math.min(to, LineToPointAdapter.firstStepAt(major, minor, leave + 1) - 1);
+                if (stepFrom <= stepTo) {
+                    tiles[xMajor ? cross * columns + band : band * columns + cross].add(line, (int) stepFrom, (int) stepTo);
+                }
+            }
+        }
+    }
+
+    private static class Tile {
+        // x0, y0, x1, y1 and the step range of each line, packed so the tile walks a single array
+        private int[] lines = new int[6 * 8];
+        private int size = 0;
+
+        void add(Line line, int from, int to) {
+            if (6 * size == lines.length) {
+                lines = Arrays.copyOf(lines, lines.length * 2);
+            }
+            int i = 6 * size++;
+            lines[i] = line.start.x;
+            lines[i + 1] = line.start.y;
+            lines[i + 2] = line.end.x;
+            lines[i + 3] = line.end.y;
+            lines[i + 4] = from;
+            lines[i + 5] = to;
+        }
+
+        void rasterize(Framebuffer framebuffer) {
+            // the step ranges are clipped to the tile bounds, so only the pixels owned by this tile are written and
+            // that's what makes the framebuffer lock free
+            for (int i = 0; i < 6 * size; i += 6) {
+                LineToPointAdapter.rasterize(lines[i], lines[i + 1], lines[i + 2], lines[i + 3],
+                        lines[i + 4], lines[i + 5], framebuffer::set);
+            }
+        }
+    }
+
+    private static class RasterizeTiles extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Tile[] tiles;
+        private final int from, to;
+        private final Framebuffer framebuffer;
+
+        RasterizeTiles(Tile[] tiles, int from, int to, Framebuffer framebuffer) {
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+            this.framebuffer = framebuffer;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) {
+                    tiles[i].rasterize(framebuffer);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RasterizeTiles(tiles, from, middle, framebuffer),
+                    new RasterizeTiles(tiles, middle, to, framebuffer));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.ArrayList;
+
+/**
+ * The version changes whenever the object changes, so renderers can tell whether what they drew before is still valid.
+ * Adding and removing lines is tracked automatically, lines changed in place (their points are mutable) have to be
+ * reported through markDirty.
+ */
+class VectorObject extends ArrayList<Line> {
+
+    private int changes = 0;
+
+    public int version() {
+        return modCount + changes;
+    }
+
+    public void markDirty() {
+        changes++;
+    }
+
+    @Override
+    public Line set(int index, Line element) {
+        changes++;
+        return super.set(index, element);
+    }
+
+    /**
+     * Smallest box containing all the lines, or null when there are no lines.
+     */
+    public BoundingBox bounds() {
+        BoundingBox bounds = null;
+        for (Line line : this) {
+            BoundingBox lineBounds = BoundingBox.of(line);
+            bounds = bounds == null ? lineBounds : bounds.union(lineBounds);
+        }
+        return bounds;
+    }
+}
@@ -0,0 +1,173 @@
+package br.com.cedran.structural.adapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Keeping the objects in a flat list means every line is rasterized even when it is nowhere near the screen, so
+ * panning a huge drawing costs as much as drawing all of it.
+ *
+ * The grid index buckets the objects by the cells their bounding boxes overlap, so a viewport query only looks at the
+ * cells under the viewport. The lines of the visible objects are then clipped against the viewport before being
+ * rasterized, so only the visible part of a long line generates points.
+ */
+public class ViewportCulling {
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        GridIndex index = new GridIndex(64);
+        for (int i = 0; i < 100_000; i++) {
+            index.insert(new VectorRectangle(random.nextInt(10_000), random.nextInt(10_000), 1 + random.nextInt(40), 1 + random.nextInt(40)));
+        }
+
+        BoundingBox viewport = new BoundingBox(5_000, 5_000, 5_639, 5_479);
+        Framebuffer framebuffer = new Framebuffer(640, 480);
+        List<VectorObject> visible = index.query(viewport);
+        int points = ViewportRenderer.draw(visible, viewport, (x, y) -> framebuffer.set(x - viewport.left, y - viewport.top));
+        System.out.println(visible.size() + " of " + index.size() + " objects visible, " + points + " points drawn");
+    }
+}
+
+class GridIndex {
+
+    private final int cellSize;
+    private final Map<Long, List<VectorObject>> cells = new HashMap<>();
+    private final Map<VectorObject, BoundingBox> indexed = new IdentityHashMap<>();
+
+    public GridIndex(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+    }
+
+    public void insert(VectorObject vo) {
+        BoundingBox bounds = vo.bounds();
+        if (bounds == null || indexed.putIfAbsent(vo, bounds) != null) {
+            return;
+        }
+        forEachCell(bounds, cell -> cells.computeIfAbsent(cell, key -> new ArrayList<>()).add(vo));
+    }
+
+    public void remove(VectorObject vo) {
+        BoundingBox bounds = indexed.remove(vo);
+        if (bounds == null) {
+            return;
+        }
+        forEachCell(bounds, cell -> {
+            List<VectorObject> objects = cells.get(cell);
+            objects.removeIf(indexedObject -> indexedObject == vo);
+            if (objects.isEmpty()) {
+                cells.remove(cell);
+            }
+        });
+    }
+
+    /**
+     * Objects are indexed by the bounds they had when inserted, so they need to be updated after being changed.
+     */
+    public void update(VectorObject vo) {
+        remove(vo);
+        insert(vo);
+    }
+
+    public int size() {
+        return indexed.size();
+    }
+
+    /**
+     * Objects whose bounding box intersects the viewport.
+     */
+    public List<VectorObject> query(BoundingBox viewport) {
+        Set<VectorObject> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<VectorObject> result = new ArrayList<>();
+        forEachCell(viewport, cell -> {
+            List<VectorObject> objects = cells.get(cell);
+            if (objects == null) {
+                return;
+            }
+            for (VectorObject vo : objects) {
+                if (indexed.get(vo).intersects(viewport) && found.add(vo)) {
+                    result.add(vo);
+                }
+            }
+        });
+        return result;
+    }
+
+    private void forEachCell(BoundingBox bounds, CellConsumer action) {
+        int firstColumn = Math.floorDiv(bounds.left, cellSize), lastColumn = Math.floorDiv(bounds.right, cellSize);
+        int firstRow = Math.floorDiv(bounds.top, cellSize), lastRow = Math.floorDiv(bounds.bottom, cellSize);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                action.accept(((long) row << 32) | (column & 0xFFFFFFFFL));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface CellConsumer {
+        void accept(long cell);
+    }
+}
+
+class ViewportRenderer {
+
+    /**
+     * Clips every line of the objects against the viewport and draws what is left, returning the number of points.
+     */
+    public static int draw(Iterable<? extends VectorObject> objects, BoundingBox viewport, PointSink sink) {
+        PackedPoints points = new PackedPoints();
+        for (VectorObject vo : objects) {
+            for (Line line : vo) {
+                LineClipper.rasterize(line, viewport, points::add);
+            }
+        }
+        sink.drawPoints(points);
+        return points.size();
+    }
+}
+
+/**
+ * Clips lines in step space rather than in coordinates: the steps of a Bresenham line whose pixels fall inside the
+ * viewport are a single range, the intersection of the steps inside it along the major axis and the ones inside it
+ * along the minor axis, and the closed form of the error term gives both. Only that stretch of the original line is
+ * rasterized, so it lights exactly the pixels the whole line lights inside the viewport.
+ */
+class LineClipper {
+
+    /**
+     * Emits the points of the line which fall inside the viewport, nothing when it is fully outside.
+     */
+    public static void rasterize(Line line, BoundingBox viewport, PointConsumer out) {
+        final boolean xMajor = Math.abs(line.end.x - line.start.x) >= Math.abs(line.end.y - line.start.y);
+        final int majorStart = xMajor ? line.start.x : line.start.y, majorEnd = xMajor ? line.end.x : line.end.y;
+        final int minorStart = xMajor ? line.start.y : line.start.x, minorEnd = xMajor ? line.end.y : line.end.x;
+        final int majorLow = xMajor ? viewport.left : viewport.top, majorHigh = xMajor ? viewport.right : viewport.bottom;
+        final int minorLow = xMajor ? viewport.top : viewport.left, minorHigh = xMajor ? viewport.bottom : viewport.right;
+        final int major = Math.abs(majorEnd - majorStart), minor = Math.abs(minorEnd - minorStart);
+        final int majorSign = majorStart < majorEnd ? 1 : -1, minorSign = minorStart < minorEnd ? 1 : -1;
+
+        long from = majorSign > 0 ? (long) majorLow - majorStart : (long) majorStart - majorHigh;
+        long to = majorSign > 0 ? (long) majorHigh - majorStart : (long) majorStart - majorLow;
+        long enter = minorSign > 0 ? (long) minorLow - minorStart : (long) minorStart - minorHigh;
+        long leave = minorSign > 0 ? (long) minorHigh - minorStart : (long) minorStart - minorLow;
+        if (leave < 0 || enter > minor) {
+            return;
+        }
+        from = Math.max(Math.max(from, 0), LineToPointAdapter.firstStepAt(major, minor, (int) Math.max(enter, 0)));
+        if (leave < minor) {
+            to = Math.min(to, LineToPointAdapter.firstStepAt(major, minor, (int) leave + 1) - 1);
+        }
+        to = Math.min(to, major);
+        if (from <= to) {
+            LineToPointAdapter.rasterize(line.start.x, line.start.y, line.end.x, line.end.y, (int) from, (int) to, out);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package br.com.cedran.structural.adapter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The line cache only lives in memory, so every process start rasterizes every line again before reaching its steady
+ * state.
+ *
+ * A snapshot of the cache can be written to disk (on demand or at shutdown) and loaded back at startup. The file is a
+ * flat sequence of ints and it is memory-mapped on both ends: loading an entry is a bulk copy of its points out of
+ * the mapping, with no per point parsing nor objects.
+ *
+ * Format: magic, translation invariant flag, entry count and then, for each entry, x0, y0, x1, y1, point count and the
+ * interleaved coordinates. Entries are stored under the key they have in the cache, so a snapshot taken in translation
+ * invariant mode is rejected when loaded in the other mode, and the other way around.
+ */
+public class WarmStartCache {
+
+    public static void main(String[] args) throws IOException {
+        Path snapshot = Files.createTempFile("line-cache", ".bin");
+
+        LineToPointAdapterCache.adapt(new VectorRectangle(1, 1, 10, 10), new PackedPoints());
+        LineCacheSnapshot.write(LineToPointAdapterCache.getCache(), snapshot);
+        System.out.println("Snapshot with " + LineToPointAdapterCache.getCache().size() + " lines written to " + snapshot);
+
+        // a new process would start with an empty cache
+        LineRasterCache warm = new ConcurrentLineRasterCache();
+        LineCacheSnapshot.load(snapshot, warm);
+        LineToPointAdapterCache.setCache(warm);
+        long misses = LineToPointAdapterCache.metrics().snapshot(warm).misses;
+        LineToPointAdapterCache.adapt(new VectorRectangle(1, 1, 10, 10), new PackedPoints());
+        System.out.println(warm.size() + " lines loaded, misses after drawing again: "
+                + (LineToPointAdapterCache.metrics().snapshot(warm).misses - misses));
+    }
+}
+
+class LineCacheSnapshot {
+
+    private static final int MAGIC = 0x4C524332; // "LRC2"
+    private static final int HEADER_INTS = 3, ENTRY_HEADER_INTS = 5;
+
+    public static void write(LineRasterCache cache, Path file) throws IOException {
+        // entries are collected first, the cache may change while it is being written
+        List<Line> lines = new ArrayList<>();
+        List<PackedPoints> points = new ArrayList<>();
+        cache.forEach((line, linePoints) -> {
+            lines.add(line);
+            points.add(linePoints);
+        });
+        long ints = HEADER_INTS;
+        for (PackedPoints linePoints : points) {
+            ints += ENTRY_HEADER_INTS + linePoints.size() * 2L;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, ints * Integer.BYTES);
+            IntBuffer buffer = mapped.asIntBuffer();
+            buffer.put(MAGIC).put(LineToPointAdapterCache.isTranslationInvariant() ? 1 : 0).put(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                Line line = lines.get(i);
+                buffer.put(line.start.x).put(line.start.y).put(line.end.x).put(line.end.y).put(points.get(i).size());
+                points.get(i).writeTo(buffer);
+            }
+            mapped.force();
+        }
+    }
+
+    /**
+     * Adds the entries of the snapshot to the given cache. The whole file is validated before the first entry is added,
+     * so a truncated or corrupt snapshot leaves the cache untouched.
+     */
+    public static void load(Path file, LineRasterCache cache) throws IOException {
+        List<Line> lines = new ArrayList<>();
+        List<PackedPoints> points = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            IntBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+            if (buffer.remaining() < HEADER_INTS || buffer.get() != MAGIC) {
+                throw new IOException("Not a line cache snapshot: " + file);
+            }
+            boolean translationInvariant = buffer.get() == 1;
+            if (translationInvariant != LineToPointAdapterCache.isTranslationInvariant()) {
+                throw new IOException("Snapshot taken with translation invariance " + (translationInvariant ? "on" : "off")
+                        + ", the cache is running with it " + (translationInvariant ? "off" : "on") + ": " + file);
+            }
+            int entries = buffer.get();
+            if (entries < 0 || entries > buffer.remaining() / ENTRY_HEADER_INTS) {
+                throw new IOException("Corrupt line cache snapshot, bad entry count " + entries + ": " + file);
+            }
+            for (int i = 0; i < entries; i++) {
+                if (buffer.remaining() < ENTRY_HEADER_INTS) {
+                    throw new IOException("Truncated line cache snapshot at entry " + i + ": " + file);
+                }
+                Line line = new Line(new Point(buffer.get(), buffer.get()), new Point(buffer.get(), buffer.get()));
+                int pointCount = buffer.get();
+                if (pointCount < 0 || pointCount * 2L > buffer.remaining()) {
+                    throw new IOException("Corrupt line cache snapshot, bad point count " + pointCount + " at entry "
+                            + i + ": " + file);
+                }
+                lines.add(line);
+                points.add(PackedPoints.readFrom(buffer, pointCount));
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Corrupt line cache snapshot, " + buffer.remaining() + " trailing ints: " + file);
+            }
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            cache.put(lines.get(i), points.get(i));
+        }
+    }
+
+    /**
+     * Writes a snapshot of the cache when the JVM shuts down.
+     */
+    public static void writeOnShutdown(LineRasterCache cache, Path file) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                write(cache, file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+}
@@ -0,0 +1,274 @@
+package br.com.cedran.structural.bridge;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shapes call the renderer synchronously, so the thread updating the shapes also pays for all the rendering (and its
+ * I/O).
+ *
+ * Since the shapes only know the Renderer interface, the rendering can be moved to another thread by a decorator:
+ * AsyncRenderer puts every render command into a bounded lock-free ring buffer and a dedicated consumer thread drains
+ * it in batches into the real renderer. When the buffer is full the producers wait (backpressure) rather than growing
+ * memory without limits, and flush() works as a frame fence, returning once everything enqueued before it has been
+ * rendered. Neither the idle consumer nor the flushing threads poll, they park until there is something for them.
+ */
+public class AsyncRendering {
+
+    public static void main(String[] args) {
+        try (AsyncRenderer renderer = new AsyncRenderer(new VectorRenderer(), 1024)) {
+            Circle circle = new Circle(renderer, 1);
+            for (int i = 0; i < 5; i++) {
+                circle.draw();
+                circle.resize(2);
+            }
+            renderer.flush();
+            System.out.println("Frame done");
+        }
+    }
+}
+
+class AsyncRenderer implements Renderer, AutoCloseable {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final Renderer target;
+    private final RenderQueue queue;
+    private final Thread consumer;
+    private final AtomicLong rendered = new AtomicLong();
+    // producers between the closed check and the end of their offer, close() waits for them before the last flush
+    private final AtomicInteger producing = new AtomicInteger();
+    private volatile boolean closed = false;
+    private volatile boolean stopped = false;
+    private volatile Throwable failure;
+    // set by the consumer before parking on an empty queue, producers only pay for an unpark when it is
+    private volatile boolean sleeping = false;
+    // set when the consumer leaves, before it wakes up the flushing threads for the last time
+    private volatile boolean drained = false;
+    // threads parked in flush(), woken up by the consumer whenever it renders a batch
+    private final Set<Thread> flushing = ConcurrentHashMap.newKeySet();
+
+    public AsyncRenderer(Renderer target, int capacity) {
+        this.target = target;
+        this.queue = new RenderQueue(capacity);
+        this.consumer = new Thread(this::drain, "async-renderer");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void renderCircle(float radius) {
+        enqueue(radius, false);
+    }
+
+    @Override
+    public void eraseCircle(float radius) {
+        enqueue(radius, true);
+    }
+
+    private void enqueue(float radius, boolean erase) {
+        producing.incrementAndGet();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Renderer is closed");
+            }
+            int attempts = 0;
+            while (!queue.offer(radius, erase)) {
+                // backpressure: the producer waits for the consumer to free some room, as long as there is a consumer
+                if (!consumer.isAlive()) {
+                    throw new IllegalStateException("Rendering stopped", failure);
+                }
+                if (++attempts < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(1_000);
+                }
+            }
+            // the flag is read after the command is published and the consumer checks the queue after setting it, so
+            // either the consumer sees the command or the producer sees the flag
+            if (sleeping) {
+                LockSupport.unpark(consumer);
+            }
+        } finally {
+            producing.decrementAndGet();
+        }
+    }
+
+    /**
+     * Waits until every command enqueued before this call has been rendered.
+     */
+    public void flush() {
+        long fence = queue.enqueued();
+        Thread current = Thread.currentThread();
+        flushing.add(current);
+        try {
+            while (rendered.get() < fence && failure == null) {
+                if (drained) {
+                    throw new IllegalStateException("Rendering stopped");
+                }
+                LockSupport.park(this);
+            }
+        } finally {
+            flushing.remove(current);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Rendering failed", failure);
+        }
+    }
+
+    /**
+     * Rejects new commands, waits for the producers already past the check to enqueue theirs, renders everything and
+     * then stops the consumer.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            while (producing.get() > 0) {
+                LockSupport.parkNanos(1_000);
+            }
+            flush();
+        } finally {
+            stopped = true;
+            LockSupport.unpark(consumer);
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void drain() {
+        float[] batch = new float[BATCH_SIZE];
+        boolean[] erases = new boolean[BATCH_SIZE];
+        try {
+            while (true) {
+                int n = queue.drainTo(batch, erases);
+                if (n > 0) {
+                    try {
+                        if (erases[0]) {
+                            target.eraseCircles(batch, n);
+                        } else {
+                            target.renderCircles(batch, n);
+                        }
+                    } catch (Throwable e) {
+                        // only the first failure is kept, it is the one that explains the following ones
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    } finally {
+                        rendered.addAndGet(n);
+                        wakeFlushing();
+                    }
+                } else if (stopped) {
+                    return;
+                } else {
+                    sleeping = true;
+                    if (queue.isEmpty() && !stopped) {
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                }
+            }
+        } finally {
+            // nothing will advance the rendered count anymore, the flushing threads must find out
+            drained = true;
+            wakeFlushing();
+        }
+    }
+
+    private void wakeFlushing() {
+        for (Thread thread : flushing) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
+
+/**
+ * Bounded multi-producer single-consumer ring buffer of render and erase commands, a radius each (Vyukov's algorithm). Every slot has a sequence number
+ * telling whether it is free for the producer claiming that position or holds a value ready for the consumer, so
+ * producers only compete on a CAS over the tail and never lock.
+ */
+class RenderQueue {
+
+    private final float[] radii;
+    private final boolean[] erases;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+
+    RenderQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two");
+        }
+        radii = new float[capacity];
+        erases = new boolean[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns false when the queue is full.
+     */
+    boolean offer(float radius, boolean erase) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    radii[index] = radius;
+                    erases[index] = erase;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Moves up to batch.length ready commands into the batch and returns how many. A batch only holds commands of one
+     * kind, erases[0] tells which. Must only be called by the consumer.
+     */
+    int drainTo(float[] batch, boolean[] erases) {
+        long position = head;
+        int n = 0;
+        while (n < batch.length) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1 || (n > 0 && this.erases[index] != erases[0])) {
+                break;
+            }
+            erases[n] = this.erases[index];
+            batch[n++] = radii[index];
+            sequences.set(index, position + radii.length);
+            position++;
+        }
+        head = position;
+        return n;
+    }
+
+    /**
+     * Whether the next value for the consumer is not ready yet. Must only be called by the consumer.
+     */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    /**
+     * Number of positions claimed by producers so far.
+     */
+    long enqueued() {
+        return tail.get();
+    }
+}
@@ -1,5 +1,10 @@
 package br.com.cedran.structural.bridge;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.stream.IntStream;
+
 /**
  *  Bridge prevents am entity "Cartesian Product" complexity explosion.
  *
@@ -25,63 +30,452 @@ public class Bridge {
         circle.resize(2);
         circle.draw();
 
+        System.out.println("Raster pixels lit: " + raster.litPixels());
+
         circle = new Circle(vector, 4);
         circle.draw();
+
+        // a whole scene of circles is rendered in a single call
+        Circles circles = new Circles(vector);
+        circles.add(1);
+        circles.add(2);
+        circles.add(3);
+        circles.resize(2);
+        circles.draw();
     }
 }
 
-interface Renderer {
-    void renderCircle(float radius);
+enum CircleStyle {
+    OUTLINE, FILLED
 }
 
-class VectorRenderer implements Renderer {
+/**
+ * Rasterizes the circles, centered, into an int[] framebuffer (one int per pixel). Outlines use the midpoint circle
+ * algorithm, filled circles are drawn one horizontal span per scanline, and the scanlines of big circles are filled
+ * in parallel since every row is a disjoint slice of the framebuffer.
+ *
+ * Circles tend to be redrawn at the same few sizes, so the coverage mask of each (radius, style) is rasterized once,
+ * kept in a bounded sprite cache and then only blitted into the framebuffer. Sprites are clipped to the framebuffer
+ * extent, so their size depends on the framebuffer and not on the radius, and radii big enough to cover the whole
+ * framebuffer all share the same sprite.
+ */
+class RasterRenderer implements Renderer {
+
+    static final int PARALLEL_FILL_RADIUS = 256;
+
+    private final int width, height;
+    // biggest distance from the center to a visible pixel on each axis
+    private final int extentX, extentY;
+    private final int[] pixels;
+    // how many circles cover each pixel, so erasing one keeps the pixels another one still covers
+    private final int[] coverage;
+    private final CircleStyle style;
+    private final SpriteCache sprites;
+    private int color = 0xFFFFFF;
+
+    public RasterRenderer() {
+        this(64, 64, CircleStyle.OUTLINE);
+    }
+
+    public RasterRenderer(int width, int height, CircleStyle style) {
+        this(width, height, style, new SpriteCache(SpriteCache.DEFAULT_CAPACITY_BYTES));
+    }
+
+    /**
+     * Sprites are keyed by style and framebuffer extent too, so a cache can be shared by several renderers.
+     */
+    public RasterRenderer(int width, int height, CircleStyle style, SpriteCache sprites) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Framebuffer dimensions must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.extentX = width / 2;
+        this.extentY = height / 2;
+        this.pixels = new int[width * height];
+        this.coverage = new int[width * height];
+        this.style = style;
+        this.sprites = sprites;
+    }
+
+    public void setColor(int color) {
+        this.color = color;
+    }
 
     @Override
     public void renderCircle(float radius) {
-        System.out.println("Drawing a circle of radius " + radius);
+        blit(spriteFor(quantize(radius)), 1);
     }
-}
 
-class RasterRenderer implements Renderer {
+    /**
+     * Circles of the same quantized radius share their sprite, so each distinct radius is resolved and blitted once,
+     * covering its pixels as many times as it appears in the batch.
+     */
+    @Override
+    public void renderCircles(float[] radii, int n) {
+        blitAll(radii, n, 1);
+    }
 
+    /**
+     * Pixels are only turned off once no other circle covers them anymore.
+     */
     @Override
-    public void renderCircle(float radius) {
-        System.out.println("Drawing a circle of radius " + radius);
+    public void eraseCircle(float radius) {
+        blit(spriteFor(quantize(radius)), -1);
+    }
+
+    @Override
+    public void eraseCircles(float[] radii, int n) {
+        blitAll(radii, n, -1);
+    }
+
+    private void blitAll(float[] radii, int n, int sign) {
+        int[] quantized = new int[n];
+        for (int i = 0; i < n; i++) {
+            quantized[i] = quantize(radii[i]);
+        }
+        Arrays.sort(quantized);
+        for (int i = 0, count; i < n; i += count) {
+            count = 1;
+            while (i + count < n && quantized[i + count] == quantized[i]) {
+                count++;
+            }
+            blit(spriteFor(quantized[i]), sign * count);
+        }
+    }
+
+    // radii are quantized to whole pixels, which is what the rasterization resolves anyway
+    private static int quantize(float radius) {
+        return Math.round(radius);
+    }
+
+    /**
+     * Returns null when nothing of the circle is visible.
+     */
+    private Sprite spriteFor(int r) {
+        if (r < 0) {
+            return null;
+        }
+        long squaredExtent = (long) extentX * extentX + (long) extentY * extentY;
+        if (style == CircleStyle.OUTLINE && r > 0 && (long) (r - 1) * (r - 1) > squaredExtent) {
+            // the whole outline lies outside of the framebuffer
+            return null;
+        }
+        if (style == CircleStyle.FILLED && (long) r * r > squaredExtent) {
+            // every radius from here on covers the whole framebuffer, the smallest one does the same with a shared sprite
+            r = (int) Math.ceil(Math.sqrt(squaredExtent));
+        }
+        return sprites.get(r, style, extentX, extentY);
+    }
+
+    public int pixel(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height ? pixels[y * width + x] : 0;
+    }
+
+    public int litPixels() {
+        int lit = 0;
+        for (int pixel : pixels) {
+            if (pixel != 0) {
+                lit++;
+            }
+        }
+        return lit;
+    }
+
+    public void clear() {
+        Arrays.fill(pixels, 0);
+        Arrays.fill(coverage, 0);
+    }
+
+    /**
+     * Adds times (negative to take them back) to the coverage of the pixels of the sprite, centered in the framebuffer.
+     */
+    private void blit(Sprite sprite, int times) {
+        if (sprite == null) {
+            return;
+        }
+        IntStream spans = IntStream.range(0, sprite.spanCount());
+        if (sprite.spanCount() > 2 * PARALLEL_FILL_RADIUS) {
+            // spans of a sprite never overlap, so they can be written concurrently
+            spans = spans.parallel();
+        }
+        spans.forEach(span -> {
+            int row = extentY + sprite.dy(span);
+            int from = Math.max(extentX + sprite.fromDx(span), 0), to = Math.min(extentX + sprite.toDx(span), width - 1);
+            if (row >= 0 && row < height && from <= to) {
+                int end = row * width + to + 1;
+                if (times > 0) {
+                    Arrays.fill(pixels, row * width + from, end, color);
+                    for (int i = row * width + from; i < end; i++) {
+                        coverage[i] += times;
+                    }
+                } else {
+                    for (int i = row * width + from; i < end; i++) {
+                        if (coverage[i] > 0 && (coverage[i] = Math.max(coverage[i] + times, 0)) == 0) {
+                            pixels[i] = 0;
+                        }
+                    }
+                }
+            }
+        });
     }
 }
 
-abstract class Shape {
+/**
+ * Coverage mask of a circle as horizontal spans relative to its center, stored as (dy, fromDx, toDx) triplets. Only the
+ * part within extentX and extentY of the center is kept.
+ */
+class Sprite {
+
+    final int radius;
+    private final int[] spans;
 
-    protected Renderer renderer;
+    private Sprite(int radius, int[] spans) {
+        this.radius = radius;
+        this.spans = spans;
+    }
+
+    int spanCount() {
+        return spans.length / 3;
+    }
+
+    int dy(int span) {
+        return spans[span * 3];
+    }
 
-    public Shape(Renderer renderer) {
-        this.renderer = renderer;
+    int fromDx(int span) {
+        return spans[span * 3 + 1];
     }
 
-    public abstract void draw();
-    public abstract void resize(float factor);
+    int toDx(int span) {
+        return spans[span * 3 + 2];
+    }
+
+    long bytes() {
+        return (long) spans.length * Integer.BYTES;
+    }
+
+    static Sprite of(int r, CircleStyle style, int extentX, int extentY) {
+        return style == CircleStyle.FILLED ? filled(r, extentX, extentY) : outline(r, extentX, extentY);
+    }
+
+    private static Sprite filled(int r, int extentX, int extentY) {
+        final int rows = Math.min(r, extentY);
+        int[] spans = new int[(2 * rows + 1) * 3];
+        final long squaredRadius = (long) r * r;
+        for (int dy = -rows, i = 0; dy <= rows; dy++, i += 3) {
+            int halfSpan = (int) Math.min(Math.sqrt(squaredRadius - (long) dy * dy), extentX);
+            spans[i] = dy;
+            spans[i + 1] = -halfSpan;
+            spans[i + 2] = halfSpan;
+        }
+        return new Sprite(r, spans);
+    }
+
+    /**
+     * Midpoint circle. On every row the outline covers a contiguous run of |dx| values on each side of the center,
+     * so the smallest and biggest |dx| per row are enough to build the spans.
+     */
+    private static Sprite outline(int r, int extentX, int extentY) {
+        final int rows = Math.min(r, extentY);
+        int[] minDx = new int[2 * rows + 1];
+        int[] maxDx = new int[2 * rows + 1];
+        Arrays.fill(minDx, Integer.MAX_VALUE);
+        Arrays.fill(maxDx, -1);
+        int x = r, y = 0;
+        int decision = 1 - r;
+        while (x >= y) {
+            mark(minDx, maxDx, rows, y, x);
+            mark(minDx, maxDx, rows, -y, x);
+            mark(minDx, maxDx, rows, x, y);
+            mark(minDx, maxDx, rows, -x, y);
+            y++;
+            if (decision < 0) {
+                decision += 2 * y + 1;
+            } else {
+                x--;
+                decision += 2 * (y - x) + 1;
+            }
+        }
+
+        int[] spans = new int[(2 * rows + 1) * 6];
+        int length = 0;
+        for (int dy = -rows; dy <= rows; dy++) {
+            int row = dy + rows;
+            if (maxDx[row] < 0 || minDx[row] > extentX) {
+                continue;
+            }
+            int to = Math.min(maxDx[row], extentX);
+            if (minDx[row] == 0) {
+                spans[length++] = dy;
+                spans[length++] = -to;
+                spans[length++] = to;
+            } else {
+                spans[length++] = dy;
+                spans[length++] = -to;
+                spans[length++] = -minDx[row];
+                spans[length++] = dy;
+                spans[length++] = minDx[row];
+                spans[length++] = to;
+            }
+        }
+        return new Sprite(r, Arrays.copyOf(spans, length));
+    }
+
+    private static void mark(int[] minDx, int[] maxDx, int rows, int dy, int absDx) {
+        if (dy < -rows || dy > rows) {
+            return;
+        }
+        int row = dy + rows;
+        minDx[row] = Math.min(minDx[row], absDx);
+        maxDx[row] = Math.max(maxDx[row], absDx);
+    }
 }
 
-class Circle extends Shape {
+/**
+ * Bounded by the memory taken by the sprites, least recently used ones are evicted first. Sprites bigger than the
+ * whole capacity are built on every call rather than flushing the cache.
+ */
+class SpriteCache {
 
-    public float radius;
+    public static final long DEFAULT_CAPACITY_BYTES = 4 * 1024 * 1024;
 
-    public Circle(Renderer renderer) {
-        super(renderer);
+    private final long capacityBytes;
+    private final LinkedHashMap<Key, Sprite> sprites = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private long hits = 0, misses = 0;
+
+    public SpriteCache(long capacityBytes) {
+        if (capacityBytes <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**
+     * Sprites are keyed by the extent they are clipped to as well, so renderers of different sizes can share a cache.
+     */
+    public synchronized Sprite get(int radius, CircleStyle style, int extentX, int extentY) {
+        Key key = new Key(radius, style, extentX, extentY);
+        Sprite sprite = sprites.get(key);
+        if (sprite != null) {
+            hits++;
+            return sprite;
+        }
+        misses++;
+        sprite = Sprite.of(radius, style, extentX, extentY);
+        if (sprite.bytes() <= capacityBytes) {
+            sprites.put(key, sprite);
+            bytes += sprite.bytes();
+            Iterator<Sprite> eldest = sprites.values().iterator();
+            while (bytes > capacityBytes) {
+                bytes -= eldest.next().bytes();
+                eldest.remove();
+            }
+        }
+        return sprite;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long bytes() {
+        return bytes;
     }
 
-    public Circle(Renderer renderer, float radius) {
+    private static final class Key {
+        private final int radius, extentX, extentY;
+        private final CircleStyle style;
+
+        Key(int radius, CircleStyle style, int extentX, int extentY) {
+            this.radius = radius;
+            this.style = style;
+            this.extentX = extentX;
+            this.extentY = extentY;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return radius == that.radius && extentX == that.extentX && extentY == that.extentY && style == that.style;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((radius * 31 + style.ordinal()) * 31 + extentX) * 31 + extentY;
+        }
+    }
+}
+
+/**
+ * Many circles kept as a struct of arrays (a single float[] of radii) rather than one Circle object each, so a whole
+ * scene goes to the renderer in one renderCircles call and resizing them all is a tight loop over the array.
+ */
+class Circles extends Shape {
+
+    private float[] radii = new float[16];
+    private int size = 0;
+    // radii of the last draw, so erase takes back exactly what was drawn
+    private float[] drawnRadii = new float[0];
+    private int drawnSize = 0;
+
+    public Circles(Renderer renderer) {
         super(renderer);
-        this.radius = radius;
+    }
+
+    /**
+     * Adds a circle and returns its index.
+     */
+    public int add(float radius) {
+        if (size == radii.length) {
+            radii = Arrays.copyOf(radii, size * 2);
+        }
+        radii[size] = radius;
+        markDirty();
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float radius(int index) {
+        return radii[index];
+    }
+
+    public void resize(int index, float factor) {
+        radii[index] *= factor;
+        markDirty();
     }
 
     @Override
     public void draw() {
-        renderer.renderCircle(radius);
+        renderer.renderCircles(radii, size);
+        if (drawnRadii.length < size) {
+            drawnRadii = new float[radii.length];
+        }
+        System.arraycopy(radii, 0, drawnRadii, 0, size);
+        drawnSize = size;
+    }
+
+    @Override
+    public void erase() {
+        renderer.eraseCircles(drawnRadii, drawnSize);
+        drawnSize = 0;
     }
 
     @Override
     public void resize(float factor) {
-        radius *= factor;
+        for (int i = 0; i < size; i++) {
+            radii[i] *= factor;
+        }
+        markDirty();
     }
-}
\ No newline at end of file
+}
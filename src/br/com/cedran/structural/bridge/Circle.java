@@ -0,0 +1,46 @@
+package br.com.cedran.structural.bridge;
+
+class Circle extends Shape {
+
+    private float radius;
+    // radius of the last draw, NaN when the circle is not on the renderer
+    private float drawnRadius = Float.NaN;
+
+    public Circle(Renderer renderer) {
+        super(renderer);
+    }
+
+    public Circle(Renderer renderer, float radius) {
+        super(renderer);
+        this.radius = radius;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public void setRadius(float radius) {
+        this.radius = radius;
+        markDirty();
+    }
+
+    @Override
+    public void draw() {
+        renderer.renderCircle(radius);
+        drawnRadius = radius;
+    }
+
+    @Override
+    public void erase() {
+        if (!Float.isNaN(drawnRadius)) {
+            renderer.eraseCircle(drawnRadius);
+            drawnRadius = Float.NaN;
+        }
+    }
+
+    @Override
+    public void resize(float factor) {
+        radius *= factor;
+        markDirty();
+    }
+}
@@ -0,0 +1,28 @@
+package br.com.cedran.structural.bridge;
+
+interface Renderer {
+    void renderCircle(float radius);
+
+    /**
+     * Batch version, renders the first n radii in a single call. Renderers should override it with a tight loop
+     * rather than paying an interface call (and an output) per circle.
+     */
+    default void renderCircles(float[] radii, int n) {
+        for (int i = 0; i < n; i++) {
+            renderCircle(radii[i]);
+        }
+    }
+
+    /**
+     * Takes back the output of a previous renderCircle with the same radius. Renderers which do not keep their output
+     * (a console) have nothing to take back.
+     */
+    default void eraseCircle(float radius) {
+    }
+
+    default void eraseCircles(float[] radii, int n) {
+        for (int i = 0; i < n; i++) {
+            eraseCircle(radii[i]);
+        }
+    }
+}
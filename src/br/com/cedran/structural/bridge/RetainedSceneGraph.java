@@ -0,0 +1,85 @@
+package br.com.cedran.structural.bridge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resizing a circle does not redraw it, the application has to remember to call draw again, and there is no way to
+ * tell the shapes which changed apart from the ones which did not.
+ *
+ * Shapes flag themselves as dirty when they change, and the scene graph keeps them between frames: every frame only
+ * the dirty shapes have their previous output erased, go to their renderers again and get their flag cleared. Changing
+ * a shape several times within the same frame just keeps it dirty, so it is still drawn once.
+ */
+public class RetainedSceneGraph {
+
+    public static void main(String[] args) {
+        VectorRenderer vector = new VectorRenderer();
+        Circle small = new Circle(vector, 1);
+        Circle big = new Circle(vector, 10);
+
+        SceneGraph scene = new SceneGraph();
+        scene.add(small);
+        scene.add(big);
+        System.out.println(scene.renderFrame());
+
+        small.resize(2);
+        small.resize(2);
+        System.out.println(scene.renderFrame());
+
+        System.out.println(scene.renderFrame());
+    }
+}
+
+class SceneGraph {
+
+    private final List<Shape> shapes = new ArrayList<>();
+
+    public void add(Shape shape) {
+        shapes.add(shape);
+    }
+
+    /**
+     * The shape is taken off its renderer right away.
+     */
+    public boolean remove(Shape shape) {
+        if (!shapes.remove(shape)) {
+            return false;
+        }
+        shape.erase();
+        return true;
+    }
+
+    /**
+     * Redraws the shapes changed since the previous frame, in place of what they drew before.
+     */
+    public FrameStats renderFrame() {
+        int drawn = 0;
+        for (Shape shape : shapes) {
+            if (shape.isDirty()) {
+                shape.erase();
+                shape.draw();
+                shape.clearDirty();
+                drawn++;
+            }
+        }
+        return new FrameStats(drawn, shapes.size() - drawn);
+    }
+
+    static class FrameStats {
+        public final int drawn, skipped;
+
+        FrameStats(int drawn, int skipped) {
+            this.drawn = drawn;
+            this.skipped = skipped;
+        }
+
+        @Override
+        public String toString() {
+            return "FrameStats{" +
+                    "drawn=" + drawn +
+                    ", skipped=" + skipped +
+                    '}';
+        }
+    }
+}
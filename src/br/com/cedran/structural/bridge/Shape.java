@@ -0,0 +1,36 @@
+package br.com.cedran.structural.bridge;
+
+abstract class Shape {
+
+    protected Renderer renderer;
+    // a new shape has never been drawn, so it starts dirty
+    private boolean dirty = true;
+
+    public Shape(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Shapes must call it whenever they change, so retained scenes know they have to be drawn again.
+     */
+    protected void markDirty() {
+        dirty = true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    void clearDirty() {
+        dirty = false;
+    }
+
+    public abstract void draw();
+
+    /**
+     * Takes the output of the last draw back from the renderer, does nothing when the shape has not been drawn.
+     */
+    public abstract void erase();
+
+    public abstract void resize(float factor);
+}
@@ -0,0 +1,18 @@
+package br.com.cedran.structural.bridge;
+
+class VectorRenderer implements Renderer {
+
+    @Override
+    public void renderCircle(float radius) {
+        System.out.println("Drawing a circle of radius " + radius);
+    }
+
+    @Override
+    public void renderCircles(float[] radii, int n) {
+        StringBuilder output = new StringBuilder(n * 32);
+        for (int i = 0; i < n; i++) {
+            output.append("Drawing a circle of radius ").append(radii[i]).append('\n');
+        }
+        System.out.print(output);
+    }
+}